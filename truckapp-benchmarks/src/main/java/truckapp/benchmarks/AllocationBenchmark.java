@@ -0,0 +1,161 @@
+package truckapp.benchmarks;
+
+import truckapp.model.Employee;
+import truckapp.model.Order;
+import truckapp.model.Truck;
+import truckapp.repositories.EmployeeRepository;
+import truckapp.repositories.OrderRepository;
+import truckapp.repositories.TruckRepository;
+import truckapp.services.AvailabilityIndex;
+import truckapp.services.EmployeeService;
+import truckapp.services.TruckService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Подбор свободных сотрудников и автомобилей по индексу занятости.
+ * Заказы распределены по 30 ближайшим дням, на каждый заказ - автомобиль и два сотрудника
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AllocationBenchmark {
+
+    private static final int DAYS = 30;
+
+    private static final int BATCH = 50;
+
+    @Param({"10", "1000", "100000"})
+    private int fleetSize;
+
+    @Param({"0", "10000", "1000000"})
+    private int orders;
+
+    private AvailabilityIndex availabilityIndex;
+
+    private EmployeeService employeeService;
+
+    private TruckService truckService;
+
+    private Order order;
+
+    /**
+     * Построение индекса занятости и сервисов над заглушками репозиториев
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        LocalDate today = LocalDate.now();
+        List<Long> employeeIds = new ArrayList<>(fleetSize);
+        List<Employee> employees = new ArrayList<>(fleetSize + 1);
+        List<Truck> trucks = new ArrayList<>(fleetSize + 1);
+        List<Object[]> truckDescriptions = new ArrayList<>(fleetSize);
+        employees.add(null);
+        trucks.add(null);
+        for (long id = 1; id <= fleetSize; id++) {
+            Employee employee = new Employee();
+            employee.setId(id);
+            employee.setName("Сотрудник " + id);
+            employees.add(employee);
+            employeeIds.add(id);
+            Truck truck = new Truck();
+            truck.setId(id);
+            truck.setDescription(Fleet.DESCRIPTIONS[(int) (id % Fleet.DESCRIPTIONS.length)]);
+            trucks.add(truck);
+            truckDescriptions.add(new Object[]{truck.getDescription(), id});
+        }
+        List<Object[]> bookedTrucks = new ArrayList<>(orders);
+        List<Object[]> bookedWorkers = new ArrayList<>(orders * 2);
+        for (int i = 0; i < orders; i++) {
+            LocalDate date = today.plusDays(1 + i % DAYS);
+            bookedTrucks.add(new Object[]{date, (long) (i / DAYS % fleetSize + 1)});
+            bookedWorkers.add(new Object[]{date, (long) (2 * (i / DAYS) % fleetSize + 1)});
+            bookedWorkers.add(new Object[]{date, (long) ((2 * (i / DAYS) + 1) % fleetSize + 1)});
+        }
+
+        Map<String, Function<Object[], Object>> orderAnswers = Fleet.answers();
+        orderAnswers.put("findTargetDatesAndTruckIdsFrom", args -> bookedTrucks);
+        orderAnswers.put("findTargetDatesAndWorkerIdsFrom", args -> bookedWorkers);
+        Map<String, Function<Object[], Object>> employeeAnswers = Fleet.answers();
+        employeeAnswers.put("findAllIds", args -> employeeIds);
+        employeeAnswers.put("findAllById", args -> {
+            List<Employee> found = new ArrayList<>();
+            for (Object id : (Iterable<?>) args[0])
+                found.add(employees.get(Math.toIntExact((Long) id)));
+            return found;
+        });
+        Map<String, Function<Object[], Object>> truckAnswers = Fleet.answers();
+        truckAnswers.put("findAllDescriptionsAndIds", args -> truckDescriptions);
+        truckAnswers.put("findById", args -> Optional.ofNullable(trucks.get(Math.toIntExact((Long) args[0]))));
+        OrderRepository orderRepository = Fleet.repository(OrderRepository.class, orderAnswers);
+        EmployeeRepository employeeRepository = Fleet.repository(EmployeeRepository.class, employeeAnswers);
+        TruckRepository truckRepository = Fleet.repository(TruckRepository.class, truckAnswers);
+
+        availabilityIndex = new AvailabilityIndex();
+        Fleet.inject(availabilityIndex, "orderRepository", orderRepository);
+        Fleet.inject(availabilityIndex, "employeeRepository", employeeRepository);
+        Fleet.inject(availabilityIndex, "truckRepository", truckRepository);
+        availabilityIndex.rebuild();
+
+        employeeService = new EmployeeService();
+        Fleet.inject(employeeService, "employeeRepository", employeeRepository);
+        Fleet.inject(employeeService, "availabilityIndex", availabilityIndex);
+        truckService = new TruckService();
+        Fleet.inject(truckService, "truckRepository", truckRepository);
+        Fleet.inject(truckService, "availabilityIndex", availabilityIndex);
+
+        order = new Order();
+        order.setTargetDate(today.plusDays(1));
+    }
+
+    /**
+     * Подбор двух сотрудников на заказ
+     * @return найденные сотрудники
+     */
+    @Benchmark
+    public List<Employee> setWorkersToOrder() {
+        return employeeService.setWorkersToOrder(order, 2);
+    }
+
+    /**
+     * Подбор автомобиля на заказ
+     * @return найденный автомобиль
+     */
+    @Benchmark
+    public Truck setTruckToOrder() {
+        return truckService.setTruckToOrder(order, Fleet.DESCRIPTIONS[0]);
+    }
+
+    /**
+     * Подбор ресурсов для пачки заказов на одну дату, как при пакетном оформлении
+     * @return количество заказов, получивших ресурсы
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int bulkAllocation() {
+        AvailabilityIndex.Reservation reservation = new AvailabilityIndex.Reservation();
+        int booked = 0;
+        for (int i = 0; i < BATCH; i++) {
+            Long truckId = availabilityIndex.findFreeTruck(order.getTargetDate(),
+                    Fleet.DESCRIPTIONS[i % Fleet.DESCRIPTIONS.length], reservation);
+            List<Long> employeeIds = availabilityIndex.findFreeEmployees(order.getTargetDate(), 2, reservation);
+            if (truckId == null || employeeIds.size() < 2)
+                continue;
+            reservation.add(order.getTargetDate(), truckId, employeeIds);
+            booked++;
+        }
+        return booked;
+    }
+}
@@ -0,0 +1,39 @@
+package truckapp.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Точка входа benchmarks.jar.
+ * Принимает обычные аргументы JMH, всегда включает профилировщик gc
+ * (скорость и объём выделения памяти на операцию) и по умолчанию пишет результаты
+ * в target/jmh-result.json для сравнения между сборками
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Запуск бенчмарков
+     * @param args аргументы JMH, например "Allocation -p fleetSize=1000"
+     * @throws Exception при ошибке разбора аргументов или запуска
+     */
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        Options options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(commandLine.getResultFormat().orElse(ResultFormatType.JSON))
+                .result(commandLine.getResult().orElse("target/jmh-result.json"))
+                .build();
+        new Runner(options).run();
+    }
+}
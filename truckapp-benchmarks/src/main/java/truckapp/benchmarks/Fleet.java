@@ -0,0 +1,75 @@
+package truckapp.benchmarks;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Заглушки репозиториев и сервисов для бенчмарков без бд.
+ * Репозиторий - динамический прокси, отвечающий на перечисленные методы и
+ * выбрасывающий UnsupportedOperationException на остальные
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+final class Fleet {
+
+    /**
+     * Характеристики грузовиков из формы оформления заказа
+     */
+    static final String[] DESCRIPTIONS = {
+            "Жёсткий 4м/2.2м/2м Груз 1500кг",
+            "Тент 3м/1.5м/2м Груз 950кг",
+            "Жёсткий 1.6м/1м/1м Груз 500кг",
+            "Жёсткий 13.6м/2.5м/2.45м Груз 20т"
+    };
+
+    private Fleet() {
+    }
+
+    /**
+     * Создание заглушки репозитория
+     * @param type интерфейс репозитория
+     * @param answers ответы по именам методов, функция получает аргументы вызова
+     * @return заглушка
+     */
+    static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        Object stub = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "toString":
+                    return type.getSimpleName() + " stub";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    Function<Object[], Object> answer = answers.get(method.getName());
+                    if (answer == null)
+                        throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+                    return answer.apply(args);
+            }
+        });
+        return type.cast(stub);
+    }
+
+    /**
+     * Начало описания ответов репозитория
+     * @return изменяемая карта ответов
+     */
+    static Map<String, Function<Object[], Object>> answers() {
+        return new HashMap<>();
+    }
+
+    /**
+     * Внедрение зависимости в поле с @Autowired
+     * @param target объект
+     * @param field имя поля
+     * @param value значение
+     */
+    static void inject(Object target, String field, Object value) {
+        ReflectionTestUtils.setField(target, field, value);
+    }
+}
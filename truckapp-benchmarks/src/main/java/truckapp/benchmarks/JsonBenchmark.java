@@ -0,0 +1,74 @@
+package truckapp.benchmarks;
+
+import truckapp.controllers.JsonArrayResponse;
+import truckapp.dto.OrderRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация строк заказов в json: список целиком через ObjectMapper
+ * и построчная запись генератором, как в выгрузках api
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param({"50", "10000"})
+    private int rows;
+
+    private ObjectMapper objectMapper;
+
+    private List<OrderRow> orders;
+
+    /**
+     * Настройка ObjectMapper как в приложении и заполнение строк
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        orders = new ArrayList<>(rows);
+        for (long id = 1; id <= rows; id++) {
+            OrderRow row = new OrderRow(id, "customer" + id % 7, "Москва, Тверская, " + id, "Москва, Арбат, " + id,
+                    LocalDate.now().plusDays(id % 30), LocalTime.of(9, 30), new Date(),
+                    "А" + (100 + id % 900) + "ВС77", Fleet.DESCRIPTIONS[(int) (id % Fleet.DESCRIPTIONS.length)],
+                    1500 + (int) id);
+            row.getWorkers().add("Иван Петров");
+            orders.add(row);
+        }
+    }
+
+    @Benchmark
+    public byte[] writeList() throws IOException {
+        return objectMapper.writeValueAsBytes(orders);
+    }
+
+    @Benchmark
+    public int streamRows() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        JsonArrayResponse.<OrderRow>write(objectMapper, String.valueOf(rows),
+                new ServletWebRequest(new MockHttpServletRequest(), response), response, orders::forEach);
+        return response.getContentAsByteArray().length;
+    }
+}
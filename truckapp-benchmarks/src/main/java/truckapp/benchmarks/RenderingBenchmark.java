@@ -0,0 +1,140 @@
+package truckapp.benchmarks;
+
+import truckapp.dto.EmployeeRow;
+import truckapp.dto.OrderRow;
+import truckapp.model.Order;
+import truckapp.model.User;
+import truckapp.services.OrderService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.ui.ExtendedModelMap;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отрисовка страниц администратора и личного кабинета шаблонами Thymeleaf из jar приложения
+ * и заполнение формы заказа при повторном показе
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderingBenchmark {
+
+    private static final Locale LOCALE = Locale.forLanguageTag("ru");
+
+    @Param({"10", "50", "500"})
+    private int rows;
+
+    private SpringTemplateEngine templateEngine;
+
+    private MockServletContext servletContext;
+
+    private Map<String, Object> adminVariables;
+
+    private Map<String, Object> userVariables;
+
+    private OrderService orderService;
+
+    private Order orderForm;
+
+    /**
+     * Настройка шаблонизатора и данных страниц
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setTemplateMode(TemplateMode.HTML);
+        templateResolver.setCharacterEncoding("UTF-8");
+        templateResolver.setCacheable(true);
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.setEnableSpringELCompiler(true);
+        servletContext = new MockServletContext();
+
+        User user = new User();
+        user.setUsername("dispatcher");
+        user.setActivated(true);
+        List<OrderRow> orders = new ArrayList<>(rows);
+        List<EmployeeRow> employees = new ArrayList<>(rows);
+        for (long id = 1; id <= rows; id++) {
+            OrderRow row = new OrderRow(id, "customer" + id % 7, "Москва, Тверская, " + id, "Москва, Арбат, " + id,
+                    LocalDate.now().plusDays(id % 30), LocalTime.of(9, 30), new Date(),
+                    "А" + (100 + id % 900) + "ВС77", Fleet.DESCRIPTIONS[(int) (id % Fleet.DESCRIPTIONS.length)],
+                    1500 + (int) id);
+            row.getWorkers().add("Иван Петров");
+            row.getWorkers().add("Пётр Иванов");
+            orders.add(row);
+            employees.add(new EmployeeRow(id, "Сотрудник " + id, id % 5));
+        }
+
+        adminVariables = new HashMap<>();
+        adminVariables.put("user", user);
+        adminVariables.put("isChecking", "users");
+        adminVariables.put("allUsersOrders", orders);
+        adminVariables.put("allEmployees", employees);
+        adminVariables.put("nextOrdersToken", "next");
+        adminVariables.put("nextEmployeesToken", "next");
+        userVariables = new HashMap<>();
+        userVariables.put("user", user);
+        userVariables.put("orders", orders);
+        userVariables.put("nextOrdersToken", "next");
+
+        orderService = new OrderService();
+        orderForm = new Order();
+        orderForm.setAddressFrom("Москва, Тверская, 1");
+        orderForm.setAddressTo("Москва, Арбат, 10");
+        orderForm.setTargetDate(LocalDate.now().plusDays(1));
+        orderForm.setTargetTime(LocalTime.of(10, 30));
+        orderForm.setDistanceM(4200);
+        orderForm.setDurationS(1200);
+        orderForm.setPrice(1800);
+    }
+
+    @Benchmark
+    public String renderAdmin() {
+        return templateEngine.process("admin", context(adminVariables));
+    }
+
+    @Benchmark
+    public String renderMainUser() {
+        return templateEngine.process("mainUser", context(userVariables));
+    }
+
+    /**
+     * Заполнение полей формы заказа, не зависит от параметра rows
+     * @return модель страницы
+     */
+    @Benchmark
+    public ExtendedModelMap pasteOrderForm() {
+        ExtendedModelMap model = new ExtendedModelMap();
+        orderService.pasteOrderForm(orderForm, 2, model);
+        return model;
+    }
+
+    private WebContext context(Map<String, Object> variables) {
+        return new WebContext(new MockHttpServletRequest(servletContext), new MockHttpServletResponse(),
+                servletContext, LOCALE, variables);
+    }
+}
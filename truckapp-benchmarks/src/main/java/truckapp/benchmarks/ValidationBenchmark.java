@@ -0,0 +1,118 @@
+package truckapp.benchmarks;
+
+import truckapp.model.Order;
+import truckapp.validators.AuthorizationValidator;
+import truckapp.validators.EmployeeValidator;
+import truckapp.validators.OrderValidator;
+import truckapp.validators.Patterns;
+import truckapp.validators.TruckValidator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Проверки форматов в валидаторах.
+ * Методы *CompiledPerCall повторяют прежнюю реализацию с Pattern.compile на каждый вызов
+ * и служат точкой сравнения для общих скомпилированных шаблонов
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private static final String CAR_NUMBER = "А123ВС777";
+
+    private static final String NAME = "Иван Петров";
+
+    private static final String EMAIL = "ivan.petrov@example.com";
+
+    private static final String PHONE_NUMBER = "+79161234567";
+
+    private static final int NUMBER_OF_WORKERS = 2;
+
+    private final TruckValidator truckValidator = new TruckValidator();
+
+    private final EmployeeValidator employeeValidator = new EmployeeValidator();
+
+    private final AuthorizationValidator authorizationValidator = new AuthorizationValidator();
+
+    private final OrderValidator orderValidator = new OrderValidator();
+
+    private Order order;
+
+    /**
+     * Заполнение проверяемого заказа
+     */
+    @Setup
+    public void setUp() {
+        order = new Order();
+        order.setAddressFrom("Москва, Тверская, 1");
+        order.setAddressTo("Москва, Арбат, 10");
+        order.setTargetDate(LocalDate.now().plusDays(1));
+        order.setTargetTime(LocalTime.of(10, 30));
+        order.setDistanceM(4200);
+        order.setDurationS(1200);
+    }
+
+    @Benchmark
+    public boolean carNumber() {
+        return truckValidator.validateCarNumber(CAR_NUMBER);
+    }
+
+    @Benchmark
+    public boolean carNumberCompiledPerCall() {
+        return Pattern.compile(Patterns.CAR_NUMBER.pattern()).matcher(CAR_NUMBER).matches();
+    }
+
+    @Benchmark
+    public boolean employeeName() {
+        return employeeValidator.validateName(NAME);
+    }
+
+    @Benchmark
+    public boolean employeeNameCompiledPerCall() {
+        return Pattern.compile(Patterns.EMPLOYEE_NAME.pattern()).matcher(NAME).matches();
+    }
+
+    @Benchmark
+    public boolean email() {
+        return authorizationValidator.validateEmail(EMAIL);
+    }
+
+    @Benchmark
+    public boolean emailCompiledPerCall() {
+        return Pattern.compile(Patterns.EMAIL.pattern()).matcher(EMAIL).matches();
+    }
+
+    @Benchmark
+    public boolean phoneNumber() {
+        return authorizationValidator.validatePhoneNumber(PHONE_NUMBER);
+    }
+
+    @Benchmark
+    public boolean phoneNumberCompiledPerCall() {
+        return Pattern.compile(Patterns.PHONE_DIGITS.pattern()).matcher(PHONE_NUMBER.substring(2)).matches();
+    }
+
+    /**
+     * Проверка полей формы заказа с созданием листа ошибок, как в контроллере
+     * @return лист ошибок
+     */
+    @Benchmark
+    public BindingResult orderFields() {
+        BindingResult bindingResult = new BeanPropertyBindingResult(order, "orderForm");
+        orderValidator.validateFields(order, NUMBER_OF_WORKERS, bindingResult);
+        return bindingResult;
+    }
+}
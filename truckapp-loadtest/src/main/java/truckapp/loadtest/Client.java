@@ -0,0 +1,144 @@
+package truckapp.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * HTTP-клиент одного пользователя: хранит cookie с токенами входа и не следует перенаправлениям,
+ * чтобы в замер попадал только сам запрос. Тело ответа дочитывается, чтобы соединение вернулось в keep-alive
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+final class Client {
+
+    private static final int TIMEOUT_MS = 30_000;
+
+    private final String baseUrl;
+
+    private final Map<String, String> cookies = new ConcurrentHashMap<>();
+
+    /**
+     * параметризованный конструктор
+     * @param baseUrl адрес приложения без завершающего /
+     */
+    Client(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * GET-запрос
+     * @param path путь с параметрами
+     * @return код ответа
+     * @throws IOException при ошибке соединения
+     */
+    int get(String path) throws IOException {
+        return send(open(path, "GET"), null);
+    }
+
+    /**
+     * POST-запрос с телом application/x-www-form-urlencoded
+     * @param path путь
+     * @param form поля формы, попарно имя и значение
+     * @return код ответа
+     * @throws IOException при ошибке соединения
+     */
+    int post(String path, String... form) throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < form.length; i += 2) {
+            if (body.length() > 0)
+                body.append('&');
+            body.append(URLEncoder.encode(form[i], "UTF-8")).append('=').append(URLEncoder.encode(form[i + 1], "UTF-8"));
+        }
+        HttpURLConnection connection = open(path, "POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+        return send(connection, body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Проверка наличия cookie
+     * @param name имя cookie
+     * @return true, если сервер установил cookie и не удалил её
+     */
+    boolean hasCookie(String name) {
+        return cookies.containsKey(name);
+    }
+
+    /**
+     * Кодирование значения параметра запроса
+     * @param value значение
+     * @return значение для подстановки в url
+     */
+    static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        }
+        catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpURLConnection open(String path, String method) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setInstanceFollowRedirects(false);
+        connection.setConnectTimeout(TIMEOUT_MS);
+        connection.setReadTimeout(TIMEOUT_MS);
+        if (!cookies.isEmpty()) {
+            StringBuilder header = new StringBuilder();
+            for (Map.Entry<String, String> cookie : cookies.entrySet()) {
+                if (header.length() > 0)
+                    header.append("; ");
+                header.append(cookie.getKey()).append('=').append(cookie.getValue());
+            }
+            connection.setRequestProperty("Cookie", header.toString());
+        }
+        return connection;
+    }
+
+    private int send(HttpURLConnection connection, byte[] body) throws IOException {
+        if (body != null) {
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+        }
+        int status = connection.getResponseCode();
+        List<String> setCookies = connection.getHeaderFields().get("Set-Cookie");
+        if (setCookies != null) {
+            for (String setCookie : setCookies)
+                store(setCookie);
+        }
+        InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if (in != null) {
+            byte[] buffer = new byte[8192];
+            try (InputStream stream = in) {
+                while (stream.read(buffer) >= 0) {
+                    // тело ответа не разбирается
+                }
+            }
+        }
+        return status;
+    }
+
+    private void store(String setCookie) {
+        int eq = setCookie.indexOf('=');
+        if (eq <= 0)
+            return;
+        int end = setCookie.indexOf(';');
+        String name = setCookie.substring(0, eq).trim();
+        String value = setCookie.substring(eq + 1, end < 0 ? setCookie.length() : end).trim();
+        if (value.isEmpty() || setCookie.toLowerCase().contains("max-age=0"))
+            cookies.remove(name);
+        else
+            cookies.put(name, value);
+    }
+}
@@ -0,0 +1,132 @@
+package truckapp.loadtest;
+
+import truckapp.services.AvailabilityIndex;
+import truckapp.services.UserCache;
+import truckapp.services.UserExistenceFilter;
+import org.slf4j.Logger;
+import org.hibernate.Cache;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Date;
+import java.time.LocalDate;
+
+/**
+ * Заполнение пустой бд данными, близкими к рабочим: заказчики, администратор, автопарк,
+ * сотрудники и заказы за несколько месяцев назад и дней наперёд.
+ * Данные вставляются запросами над generate_series, а не через репозитории:
+ * миллион заказов вставляется за секунды. Каждый заказ дня получает свой автомобиль и двух сотрудников,
+ * поэтому заполнение не нарушает ограничений уникальности бронирований
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+final class DatasetSeeder {
+
+    private static final Logger log = LoggerFactory.getLogger(DatasetSeeder.class);
+
+    /**
+     * пароль всех пользователей
+     */
+    static final String PASSWORD = "loadtest-password";
+
+    /**
+     * никнейм администратора
+     */
+    static final String ADMIN = "admin";
+
+    /**
+     * префикс имени сотрудника
+     */
+    static final String EMPLOYEE_NAME = "Сотрудник ";
+
+    /**
+     * описания автомобилей, под которые оформляются заказы
+     */
+    static final String[] DESCRIPTIONS = {
+            "Жёсткий 4м/2.2м/2м Груз 1500кг",
+            "Тент 3м/1.5м/2м Груз 950кг",
+            "Жёсткий 1.6м/1м/1м Груз 500кг",
+            "Жёсткий 13.6м/2.5м/2.45м Груз 20т"
+    };
+
+    private static final String USER_PREFIX = "user";
+
+    private DatasetSeeder() {
+    }
+
+    /**
+     * Никнейм заказчика с указанным номером
+     * @param number номер заказчика, начиная с 1
+     * @return никнейм
+     */
+    static String username(int number) {
+        return USER_PREFIX + number;
+    }
+
+    /**
+     * Заполнение бд и перестроение индекса занятости
+     * @param context контекст запущенного приложения
+     * @param config параметры теста
+     */
+    static void seed(ApplicationContext context, LoadTestConfig config) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        String passwordHash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        LocalDate from = LocalDate.now().minusMonths(config.months);
+        LocalDate to = LocalDate.now().plusDays(config.daysAhead);
+        long start = System.nanoTime();
+
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status -> {
+            jdbc.update("INSERT INTO user8 (id, username, email, password, phone_number) "
+                    + "SELECT n, ? || n, ? || n || '@loadtest.local', ?, '+7' || lpad(n::text, 10, '0') "
+                    + "FROM generate_series(1, ?) n",
+                    USER_PREFIX, USER_PREFIX, passwordHash, config.users);
+            jdbc.update("INSERT INTO user_role8 (user_id, roles) SELECT n, 'USER' FROM generate_series(1, ?) n",
+                    config.users);
+            jdbc.update("INSERT INTO user8 (id, username, email, password, phone_number) VALUES (?, ?, ?, ?, ?)",
+                    config.users + 1, ADMIN, "admin@loadtest.local", passwordHash, "+79999999999");
+            jdbc.update("INSERT INTO user_role8 (user_id, roles) VALUES (?, 'ADMIN')", config.users + 1);
+
+            jdbc.update("INSERT INTO truck8 (id, description, car_number) "
+                    + "SELECT n, (string_to_array(?, '|'))[1 + n % ?], 'А' || lpad(n::text, 3, '0') || 'АА' || (77 + n / 1000) "
+                    + "FROM generate_series(1, ?) n",
+                    String.join("|", DESCRIPTIONS), DESCRIPTIONS.length, config.trucks);
+            jdbc.update("INSERT INTO employee8 (id, name) SELECT n, ? || n FROM generate_series(1, ?) n",
+                    EMPLOYEE_NAME, config.employees);
+
+            // k-й заказ дня выполняет автомобиль k + 1 с сотрудниками 2k + 1 и 2k + 2
+            jdbc.update("INSERT INTO order8 (id, customer_username, address_from, address_to, distance_m, duration_s, "
+                    + "target_date, target_time, creation_date, truck_id, price) "
+                    + "SELECT id, ? || (1 + id % ?), 'Москва, ул. Погрузочная, ' || (k + 1), "
+                    + "'Москва, ул. Разгрузочная, ' || (k + 1), 1000 + k * 500, 100 + k * 50, "
+                    + "day, time '08:00' + (k % 40) * interval '15 minutes', day - 3, k + 1, 1500 + k * 25 "
+                    + "FROM (SELECT row_number() OVER (ORDER BY d, k) AS id, d::date AS day, k "
+                    + "      FROM generate_series(?::date, ?::date, interval '1 day') d, generate_series(0, ? - 1) k) s",
+                    USER_PREFIX, config.users, Date.valueOf(from), Date.valueOf(to), config.ordersPerDay);
+            jdbc.update("INSERT INTO employees_orders (order_id, employee_id) "
+                    + "SELECT id, 2 * truck_id - 1 FROM order8 UNION ALL SELECT id, 2 * truck_id FROM order8");
+            jdbc.update("INSERT INTO employee_booking8 (employee_id, target_date, order_id) "
+                    + "SELECT eo.employee_id, o.target_date, o.id FROM employees_orders eo JOIN order8 o ON o.id = eo.order_id");
+
+            jdbc.queryForObject("SELECT setval(pg_get_serial_sequence('user8', 'id'), ?)", Long.class, config.users + 1);
+            jdbc.queryForObject("SELECT setval(pg_get_serial_sequence('truck8', 'id'), ?)", Long.class, config.trucks);
+            jdbc.queryForObject("SELECT setval(pg_get_serial_sequence('employee8', 'id'), ?)", Long.class, config.employees);
+            jdbc.queryForObject("SELECT setval('order8_id_seq', (SELECT coalesce(max(id), 0) FROM order8) + 50)", Long.class);
+        });
+        jdbc.execute("ANALYZE");
+
+        context.getBean(AvailabilityIndex.class).rebuild();
+        context.getBean(UserCache.class).invalidateAll();
+        context.getBean(UserExistenceFilter.class).rebuild();
+        // вставки мимо Hibernate не обновляют кэш второго уровня и метки таблиц для кэша запросов
+        context.getBean(EntityManagerFactory.class).getCache().unwrap(Cache.class).evictAllRegions();
+        log.info("Seeded {} users, {} trucks, {} employees and {} orders in {} ms",
+                config.users, config.trucks, config.employees,
+                jdbc.queryForObject("SELECT count(*) FROM order8", Long.class),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
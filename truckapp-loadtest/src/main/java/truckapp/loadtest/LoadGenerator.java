@@ -0,0 +1,104 @@
+package truckapp.loadtest;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Генератор нагрузки открытой модели: запросы поступают пуассоновским потоком с заданной частотой
+ * независимо от того, ответило ли приложение на предыдущие. Если потоки заняты, запрос ждёт в очереди,
+ * а латентность считается от запланированного момента отправки, поэтому замедление приложения
+ * видно в процентилях, а не прячется в снижении частоты запросов (coordinated omission)
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+final class LoadGenerator {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 60;
+
+    private final LoadTestConfig config;
+
+    private final Sessions sessions;
+
+    private final Report report;
+
+    private final Scenario[] wheel;
+
+    /**
+     * параметризованный конструктор
+     * @param config параметры теста
+     * @param sessions клиенты с выполненным входом
+     * @param report отчёт, в который записываются замеры
+     */
+    LoadGenerator(LoadTestConfig config, Sessions sessions, Report report) {
+        this.config = config;
+        this.sessions = sessions;
+        this.report = report;
+        int total = 0;
+        for (int weight : config.mix.values())
+            total += weight;
+        wheel = new Scenario[total];
+        int i = 0;
+        for (Map.Entry<Scenario, Integer> entry : config.mix.entrySet()) {
+            for (int n = 0; n < entry.getValue(); n++)
+                wheel[i++] = entry.getKey();
+        }
+    }
+
+    /**
+     * Подача нагрузки на время разогрева и измерения
+     * @throws InterruptedException если поток прерван
+     */
+    void run() throws InterruptedException {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(config.threads, config.threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("load-"));
+        executor.prestartAllCoreThreads();
+        Random random = new Random();
+        double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / config.rate;
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(config.warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(config.durationSeconds);
+        double next = start;
+        try {
+            while (true) {
+                next += -Math.log(1 - random.nextDouble()) * meanIntervalNanos;
+                long intendedStart = (long) next;
+                if (intendedStart - end >= 0)
+                    break;
+                long wait;
+                while ((wait = intendedStart - System.nanoTime()) > 0)
+                    LockSupport.parkNanos(wait);
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+                Scenario scenario = wheel[random.nextInt(wheel.length)];
+                boolean measured = intendedStart - measureFrom >= 0;
+                executor.execute(() -> execute(scenario, intendedStart, measured));
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+        if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+            executor.shutdownNow();
+    }
+
+    private void execute(Scenario scenario, long intendedStart, boolean measured) {
+        boolean success;
+        try {
+            success = scenario.run(sessions, ThreadLocalRandom.current());
+        }
+        catch (IOException | RuntimeException e) {
+            success = false;
+        }
+        if (measured)
+            report.record(scenario, System.nanoTime() - intendedStart, success);
+    }
+}
@@ -0,0 +1,77 @@
+package truckapp.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import truckapp.Truckapp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Точка входа loadtest.jar.
+ * Запускает локальный Postgres из бинарников в classpath, поднимает на нём приложение на свободном порту,
+ * заполняет бд, подаёт нагрузку и пишет отчёт. Сеть не нужна: почта отправляется на localhost,
+ * а в нагрузке нет сценариев, создающих письма
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+public final class LoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTest.class);
+
+    private static final String DATABASE = "postgres";
+
+    private LoadTest() {
+    }
+
+    // ключ подписи токенов живёт только на время прогона, токены между прогонами не нужны
+    private static String tokenSecret() {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        return Base64.getEncoder().encodeToString(secret);
+    }
+
+    /**
+     * Запуск нагрузочного теста
+     * @param args параметры вида name=value, см. {@link LoadTestConfig}
+     * @throws Exception при ошибке запуска бд, приложения или записи отчёта
+     */
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        // соединения HttpURLConnection переиспользуются, только пока простаивающих не больше http.maxConnections
+        System.setProperty("http.maxConnections", String.valueOf(config.threads));
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                .setServerConfig("max_connections", "100")
+                .start()) {
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(Truckapp.class).run(
+                    "--spring.datasource.url=" + postgres.getJdbcUrl(DATABASE, DATABASE) + "&reWriteBatchedInserts=true",
+                    "--spring.datasource.username=" + DATABASE,
+                    "--spring.datasource.password=",
+                    "--server.port=0",
+                    "--truckapp.management.port=0",
+                    "--spring.mail.host=localhost",
+                    "--spring.mail.port=25",
+                    "--spring.mail.protocol=smtp",
+                    "--truckapp.token.secret=" + tokenSecret());
+            try {
+                DatasetSeeder.seed(context, config);
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                Sessions sessions = Sessions.login("http://localhost:" + port, config.users, config.sessions);
+                Report report = new Report(config.mix.keySet());
+                log.info("Running {} req/s for {} s after {} s of warm-up, mix {}",
+                        config.rate, config.durationSeconds, config.warmupSeconds, config.mix);
+                new LoadGenerator(config, sessions, report).run();
+                report.write(config.output, config.durationSeconds);
+            }
+            finally {
+                context.close();
+            }
+        }
+    }
+}
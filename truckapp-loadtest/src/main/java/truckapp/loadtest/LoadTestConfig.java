@@ -0,0 +1,136 @@
+package truckapp.loadtest;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Параметры нагрузочного теста.
+ * Задаются аргументами вида name=value, например rate=200 duration=600 mix=main:50,login:50
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+final class LoadTestConfig {
+
+    private static final String DEFAULT_MIX = "login:5,main:40,makeOrder:20,adminMain:15,adminSearch:20";
+
+    /**
+     * запросов в секунду, поступающих независимо от времени ответа
+     */
+    final double rate;
+
+    /**
+     * длительность измерения, с
+     */
+    final long durationSeconds;
+
+    /**
+     * длительность разогрева, с; запросы разогрева не попадают в отчёт
+     */
+    final long warmupSeconds;
+
+    /**
+     * количество потоков, выполняющих запросы
+     */
+    final int threads;
+
+    /**
+     * количество пользователей, под которыми одновременно выполняются запросы
+     */
+    final int sessions;
+
+    /**
+     * доли сценариев в нагрузке
+     */
+    final Map<Scenario, Integer> mix;
+
+    /**
+     * количество пользователей в бд
+     */
+    final int users;
+
+    /**
+     * количество автомобилей в бд
+     */
+    final int trucks;
+
+    /**
+     * количество сотрудников в бд
+     */
+    final int employees;
+
+    /**
+     * количество месяцев прошедших заказов
+     */
+    final int months;
+
+    /**
+     * количество дней заказов, уже оформленных наперёд
+     */
+    final int daysAhead;
+
+    /**
+     * заказов в день
+     */
+    final int ordersPerDay;
+
+    /**
+     * каталог отчётов
+     */
+    final String output;
+
+    private LoadTestConfig(Map<String, String> args) {
+        rate = Double.parseDouble(args.getOrDefault("rate", "50"));
+        durationSeconds = Long.parseLong(args.getOrDefault("duration", "120"));
+        warmupSeconds = Long.parseLong(args.getOrDefault("warmup", "30"));
+        threads = Integer.parseInt(args.getOrDefault("threads", "200"));
+        sessions = Integer.parseInt(args.getOrDefault("sessions", "100"));
+        mix = parseMix(args.getOrDefault("mix", DEFAULT_MIX));
+        users = Integer.parseInt(args.getOrDefault("users", "10000"));
+        trucks = Integer.parseInt(args.getOrDefault("trucks", "200"));
+        employees = Integer.parseInt(args.getOrDefault("employees", "400"));
+        months = Integer.parseInt(args.getOrDefault("months", "6"));
+        daysAhead = Integer.parseInt(args.getOrDefault("days-ahead", "30"));
+        ordersPerDay = Integer.parseInt(args.getOrDefault("orders-per-day", "50"));
+        output = args.getOrDefault("output", "target/loadtest");
+
+        if (rate <= 0 || durationSeconds <= 0 || warmupSeconds < 0 || threads <= 0)
+            throw new IllegalArgumentException("rate, duration and threads must be positive");
+        if (sessions <= 0 || sessions > users)
+            throw new IllegalArgumentException("sessions must be between 1 and users");
+        if (ordersPerDay > trucks || 2 * ordersPerDay > employees)
+            throw new IllegalArgumentException("every seeded order needs its own truck and two employees");
+    }
+
+    /**
+     * Разбор аргументов командной строки
+     * @param args аргументы вида name=value
+     * @return параметры теста
+     */
+    static LoadTestConfig parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0)
+                throw new IllegalArgumentException("Expected name=value, got " + arg);
+            values.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return new LoadTestConfig(values);
+    }
+
+    private static Map<Scenario, Integer> parseMix(String value) {
+        Map<Scenario, Integer> mix = new EnumMap<>(Scenario.class);
+        for (String part : value.split(",")) {
+            String[] pair = part.split(":");
+            if (pair.length != 2)
+                throw new IllegalArgumentException("Expected scenario:weight, got " + part);
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0)
+                mix.put(Scenario.byName(pair[0].trim()), weight);
+        }
+        if (mix.isEmpty())
+            throw new IllegalArgumentException("mix has no scenarios");
+        return mix;
+    }
+}
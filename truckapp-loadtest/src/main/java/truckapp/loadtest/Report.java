@@ -0,0 +1,96 @@
+package truckapp.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Замеры нагрузочного теста по сценариям.
+ * Латентность хранится в гистограммах HdrHistogram в микросекундах с точностью до трёх значащих цифр.
+ * В отчёт попадают p50/p95/p99/max, пропускная способность и доля ошибок, а полные распределения
+ * пишутся в файлы .hgrm, которые открываются в HistogramLogAnalyzer и сравниваются между прогонами
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+final class Report {
+
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Map<Scenario, Histogram> histograms = new EnumMap<>(Scenario.class);
+
+    private final Map<Scenario, LongAdder> errors = new EnumMap<>(Scenario.class);
+
+    /**
+     * параметризованный конструктор
+     * @param scenarios сценарии нагрузки
+     */
+    Report(Set<Scenario> scenarios) {
+        for (Scenario scenario : scenarios) {
+            histograms.put(scenario, new ConcurrentHistogram(HIGHEST_MICROS, 3));
+            errors.put(scenario, new LongAdder());
+        }
+    }
+
+    /**
+     * Запись замера
+     * @param scenario сценарий
+     * @param nanos время от запланированной отправки запроса до получения ответа
+     * @param success совпал ли ответ с ожидаемым
+     */
+    void record(Scenario scenario, long nanos, boolean success) {
+        histograms.get(scenario).recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_MICROS));
+        if (!success)
+            errors.get(scenario).increment();
+    }
+
+    /**
+     * Вывод сводки и запись распределений
+     * @param directory каталог отчётов
+     * @param durationSeconds длительность измерения, с
+     * @throws IOException при ошибке записи файлов
+     */
+    void write(String directory, long durationSeconds) throws IOException {
+        File dir = new File(directory);
+        if (!dir.isDirectory() && !dir.mkdirs())
+            throw new IOException("Cannot create " + dir);
+        try (PrintStream summary = new PrintStream(new FileOutputStream(new File(dir, "summary.txt")), true, "UTF-8")) {
+            printSummary(summary, durationSeconds);
+        }
+        printSummary(System.out, durationSeconds);
+        for (Map.Entry<Scenario, Histogram> entry : histograms.entrySet()) {
+            File file = new File(dir, entry.getKey().displayName() + ".hgrm");
+            try (PrintStream out = new PrintStream(new FileOutputStream(file), true, "UTF-8")) {
+                entry.getValue().outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+        }
+    }
+
+    private void printSummary(PrintStream out, long durationSeconds) {
+        out.printf("%-12s %10s %10s %8s %10s %10s %10s %10s%n",
+                "scenario", "requests", "req/s", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (Map.Entry<Scenario, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            long count = histogram.getTotalCount();
+            long failed = errors.get(entry.getKey()).sum();
+            out.printf("%-12s %10d %10.1f %7.2f%% %10.1f %10.1f %10.1f %10.1f%n",
+                    entry.getKey().displayName(), count, (double) count / durationSeconds,
+                    count == 0 ? 0.0 : 100.0 * failed / count,
+                    histogram.getValueAtPercentile(50) / MICROS_PER_MILLI,
+                    histogram.getValueAtPercentile(95) / MICROS_PER_MILLI,
+                    histogram.getValueAtPercentile(99) / MICROS_PER_MILLI,
+                    histogram.getMaxValue() / MICROS_PER_MILLI);
+        }
+    }
+}
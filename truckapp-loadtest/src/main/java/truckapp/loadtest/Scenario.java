@@ -0,0 +1,125 @@
+package truckapp.loadtest;
+
+import truckapp.configuration.TokenService;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Сценарии нагрузки. Каждый сценарий - один HTTP-запрос, латентность которого попадает в отдельную гистограмму
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+enum Scenario {
+
+    /**
+     * вход по логину и паролю: хеширование пароля и выпуск токенов
+     */
+    LOGIN("login") {
+        @Override
+        boolean run(Sessions sessions, Random random) throws IOException {
+            Client client = sessions.newClient();
+            int status = client.post("/login",
+                    "username", DatasetSeeder.username(1 + random.nextInt(sessions.users())),
+                    "password", DatasetSeeder.PASSWORD);
+            return status == 302 && client.hasCookie(TokenService.ACCESS_COOKIE);
+        }
+    },
+
+    /**
+     * личный кабинет заказчика
+     */
+    MAIN("main") {
+        @Override
+        boolean run(Sessions sessions, Random random) throws IOException {
+            return sessions.customer(random).get("/main") == 200;
+        }
+    },
+
+    /**
+     * оформление заказа; отказ из-за нехватки автомобилей или грузчиков возвращает форму с кодом 200
+     */
+    MAKE_ORDER("makeOrder") {
+        @Override
+        boolean run(Sessions sessions, Random random) throws IOException {
+            LocalDate targetDate = LocalDate.now().plusDays(1 + random.nextInt(ORDER_HORIZON_DAYS));
+            int distance = 1000 + random.nextInt(50_000);
+            int status = sessions.customer(random).post("/makeOrderAction",
+                    "addressFrom", "Москва, ул. Погрузочная, " + (1 + random.nextInt(100)),
+                    "addressTo", "Москва, ул. Разгрузочная, " + (1 + random.nextInt(100)),
+                    "distanceM", String.valueOf(distance),
+                    "durationS", String.valueOf(distance / 10),
+                    "targetDate", targetDate.toString(),
+                    "targetTime", String.format("%02d:%02d", 8 + random.nextInt(10), 15 * random.nextInt(4)),
+                    "price", String.valueOf(1500 + distance / 20),
+                    "truckDescription", DatasetSeeder.DESCRIPTIONS[random.nextInt(DatasetSeeder.DESCRIPTIONS.length)],
+                    "numberOfWorkers", String.valueOf(random.nextInt(3)));
+            return status == 302 || status == 200;
+        }
+    },
+
+    /**
+     * главная страница администратора со всеми заказами и сотрудниками
+     */
+    ADMIN_MAIN("adminMain") {
+        @Override
+        boolean run(Sessions sessions, Random random) throws IOException {
+            return sessions.admin(random).get("/admin/main") == 200;
+        }
+    },
+
+    /**
+     * поиск администратором заказов по никнейму или сотрудников по имени
+     */
+    ADMIN_SEARCH("adminSearch") {
+        @Override
+        boolean run(Sessions sessions, Random random) throws IOException {
+            Client admin = sessions.admin(random);
+            if (random.nextBoolean())
+                return admin.get("/admin/searchByUsername?page=0&username="
+                        + Client.encode(DatasetSeeder.username(1 + random.nextInt(sessions.users())))) == 200;
+            return admin.get("/admin/searchEmployee?page=0&employee="
+                    + Client.encode(DatasetSeeder.EMPLOYEE_NAME + (1 + random.nextInt(100)))) == 200;
+        }
+    };
+
+    private static final int ORDER_HORIZON_DAYS = 90;
+
+    private final String name;
+
+    Scenario(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Выполнение запроса сценария
+     * @param sessions клиенты с выполненным входом
+     * @param random генератор случайных параметров запроса
+     * @return true, если ответ совпал с ожидаемым
+     * @throws IOException при ошибке соединения
+     */
+    abstract boolean run(Sessions sessions, Random random) throws IOException;
+
+    /**
+     * Имя сценария в параметре mix и в отчёте
+     * @return имя сценария
+     */
+    String displayName() {
+        return name;
+    }
+
+    /**
+     * Поиск сценария по имени
+     * @param name имя сценария
+     * @return сценарий
+     */
+    static Scenario byName(String name) {
+        for (Scenario scenario : values()) {
+            if (scenario.name.equals(name))
+                return scenario;
+        }
+        throw new IllegalArgumentException("Unknown scenario " + name);
+    }
+}
@@ -0,0 +1,89 @@
+package truckapp.loadtest;
+
+import truckapp.configuration.TokenService;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Клиенты с выполненным входом, под которыми выполняются запросы сценариев.
+ * Клиенты разделяются между потоками: одновременные запросы одного пользователя допустимы,
+ * а обновлённые по cookie постоянного входа токены сохраняются в клиенте
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+final class Sessions {
+
+    private final String baseUrl;
+
+    private final int users;
+
+    private final Client[] customers;
+
+    private final Client[] admins;
+
+    private Sessions(String baseUrl, int users, Client[] customers, Client[] admins) {
+        this.baseUrl = baseUrl;
+        this.users = users;
+        this.customers = customers;
+        this.admins = admins;
+    }
+
+    /**
+     * Вход под заказчиками и администратором
+     * @param baseUrl адрес приложения
+     * @param users количество заказчиков в бд
+     * @param customers количество заказчиков, под которыми выполняются запросы
+     * @return клиенты с выполненным входом
+     * @throws IOException при ошибке соединения или неудачном входе
+     */
+    static Sessions login(String baseUrl, int users, int customers) throws IOException {
+        Client[] customerClients = new Client[customers];
+        for (int i = 0; i < customers; i++)
+            customerClients[i] = login(baseUrl, DatasetSeeder.username(1 + (int) ((long) i * users / customers)));
+        Client[] adminClients = {login(baseUrl, DatasetSeeder.ADMIN)};
+        return new Sessions(baseUrl, users, customerClients, adminClients);
+    }
+
+    /**
+     * Новый клиент без выполненного входа
+     * @return клиент
+     */
+    Client newClient() {
+        return new Client(baseUrl);
+    }
+
+    /**
+     * @return количество заказчиков в бд
+     */
+    int users() {
+        return users;
+    }
+
+    /**
+     * Случайный заказчик
+     * @param random генератор случайных чисел
+     * @return клиент заказчика
+     */
+    Client customer(Random random) {
+        return customers[random.nextInt(customers.length)];
+    }
+
+    /**
+     * Случайный администратор
+     * @param random генератор случайных чисел
+     * @return клиент администратора
+     */
+    Client admin(Random random) {
+        return admins[random.nextInt(admins.length)];
+    }
+
+    private static Client login(String baseUrl, String username) throws IOException {
+        Client client = new Client(baseUrl);
+        int status = client.post("/login", "username", username, "password", DatasetSeeder.PASSWORD);
+        if (status != 302 || !client.hasCookie(TokenService.ACCESS_COOKIE))
+            throw new IOException("Login as " + username + " failed with status " + status);
+        return client;
+    }
+}
@@ -1,4 +1,4 @@
-package truck;
+package truckapp;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -0,0 +1,142 @@
+package truckapp.configuration;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PasswordEncoder, выполняющий хеширование паролей в отдельном пуле потоков с ограниченной очередью.
+ * Число одновременно вычисляемых хешей не превышает числа потоков пула,
+ * а при заполненной очереди выбрасывается {@link PasswordHashingRejectedException}
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@ManagedResource(objectName = "truckapp:name=passwordHashing")
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private final PasswordEncoder delegate;
+
+    private final ThreadPoolExecutor executor;
+
+    private final int workFactor;
+
+    private final LongAdder completed = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder hashingNanos = new LongAdder();
+
+    /**
+     * параметризованный конструктор
+     * @param delegate кодировщик, выполняющий хеширование
+     * @param workFactor стоимость bcrypt из конфигурации
+     * @param threads количество потоков хеширования
+     * @param queueCapacity количество ожидающих задач, после которого задачи отклоняются
+     */
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int workFactor, int threads, int queueCapacity) {
+        this.delegate = delegate;
+        this.workFactor = workFactor;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Остановка пула потоков хеширования
+     */
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @ManagedAttribute(description = "Configured bcrypt work factor")
+    public int getWorkFactor() {
+        return workFactor;
+    }
+
+    @ManagedAttribute(description = "Hash operations completed")
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    @ManagedAttribute(description = "Hash operations rejected because the queue was full")
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @ManagedAttribute(description = "Mean hash operation time, ms")
+    public double getMeanHashMillis() {
+        long count = completed.sum();
+        return count == 0 ? 0 : hashingNanos.sum() / 1_000_000.0 / count;
+    }
+
+    @ManagedAttribute(description = "Hash operations waiting in the queue")
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @ManagedAttribute(description = "Hash operations running now")
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    private <T> T execute(Callable<T> hashing) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return hashing.call();
+                }
+                finally {
+                    hashingNanos.add(System.nanoTime() - start);
+                    completed.increment();
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingRejectedException("Password hashing queue is full");
+        }
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package truckapp.configuration;
 
-
+import truckapp.metrics.MetricsRegistry;
+import truckapp.model.AuthenticatedUser;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
@@ -18,43 +20,85 @@ import java.io.IOException;
 
 
 /**
- * Класс, отвечающий за авторизацию пользователя или создание cookie файлов
+ * Класс, отвечающий за авторизацию пользователя по паролю и выдачу токенов входа.
+ * Cookie login и password, в которых раньше хранились никнейм и пароль, удаляются при входе
  *
  * @author kanenkovaa
  */
 public class CustomFilter extends UsernamePasswordAuthenticationFilter {
 
+    private static final String LOGINS = "truckapp_logins";
+
+    private static final String LOGINS_HELP = "Login attempts by outcome";
+
+    private static final String[] LEGACY_COOKIES = {"login", "password"};
+
     /**
      * Создание конфигурации фильтра авторизаци
      * @param url маппинг, при котором срабатывает фильтр
      * @param authenticationManager
+     * @param tokenService сервис токенов входа
+     * @param persistentLoginService сервис постоянного входа
+     * @param metricsRegistry реестр метрик, в котором считаются удачные и неудачные входы
      */
-    public CustomFilter(String url, AuthenticationManager authenticationManager) {
+    public CustomFilter(String url, AuthenticationManager authenticationManager, TokenService tokenService,
+                        PersistentLoginService persistentLoginService, MetricsRegistry metricsRegistry) {
         setAuthenticationManager(authenticationManager);
+        MetricsRegistry.Counter succeeded = metricsRegistry.counter(LOGINS, LOGINS_HELP, "outcome", "success");
+        MetricsRegistry.Counter failed = metricsRegistry.counter(LOGINS, LOGINS_HELP, "outcome", "failure");
+        MetricsRegistry.Counter rejected = metricsRegistry.counter(LOGINS, LOGINS_HELP, "outcome", "rejected");
 
         setAuthenticationSuccessHandler(new SimpleUrlAuthenticationSuccessHandler(){
             @Override
             public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response, Authentication authentication) throws IOException, ServletException {
-
-                Cookie passwordCookie = new Cookie("password", request.getParameter("password"));
-                Cookie loginCookie = new Cookie("login", request.getParameter("username"));
-                passwordCookie.setMaxAge(60*60*24*365);
-                loginCookie.setMaxAge(60*60*24*365);
-                response.addCookie(passwordCookie);
-                response.addCookie(loginCookie);
+                AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+                for (String legacyCookie : LEGACY_COOKIES) {
+                    Cookie cookie = new Cookie(legacyCookie, "");
+                    cookie.setMaxAge(0);
+                    response.addCookie(cookie);
+                }
+                persistentLoginService.create(user.getId(), response);
+                tokenService.issue(user, response);
+                succeeded.increment();
                 super.setDefaultTargetUrl("/main");
                 super.onAuthenticationSuccess(request, response, authentication);
             }
         });
 
-        setAuthenticationFailureHandler(new SimpleUrlAuthenticationFailureHandler(){
+        SimpleUrlAuthenticationFailureHandler failureHandler = new SimpleUrlAuthenticationFailureHandler(){
             @Override
             public void onAuthenticationFailure(HttpServletRequest request, HttpServletResponse response, AuthenticationException exception) throws IOException, ServletException {
+                if (exception.getCause() instanceof PasswordHashingRejectedException) {
+                    rejected.increment();
+                    response.setHeader("Retry-After", "1");
+                    response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    return;
+                }
+                failed.increment();
                 super.setDefaultFailureUrl("/login?error");
                 super.onAuthenticationFailure(request, response, exception);
             }
-        });
+        };
+        failureHandler.setAllowSessionCreation(false);
+        setAuthenticationFailureHandler(failureHandler);
 
         setRequiresAuthenticationRequestMatcher(new AntPathRequestMatcher(url, HttpMethod.POST.name()));
     }
+
+    /**
+     * Авторизация пользователя. Отказ очереди хеширования передаётся обработчику ошибок авторизации
+     * @param request запрос
+     * @param response ответ
+     * @return результат авторизации
+     * @throws AuthenticationException
+     */
+    @Override
+    public Authentication attemptAuthentication(HttpServletRequest request, HttpServletResponse response) throws AuthenticationException {
+        try {
+            return super.attemptAuthentication(request, response);
+        }
+        catch (PasswordHashingRejectedException e) {
+            throw new InternalAuthenticationServiceException(e.getMessage(), e);
+        }
+    }
 }
@@ -0,0 +1,131 @@
+package truckapp.configuration;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Фабрика регионов кэша второго уровня Hibernate на кэшах Guava в памяти приложения.
+ * Размер каждого региона задаётся явно свойством truckapp.cache.&lt;регион&gt;.max-entries,
+ * регион без размера не создаётся. Регион меток обновления таблиц не ограничивается:
+ * вытесненная метка сделала бы устаревшие результаты запросов снова пригодными.
+ * Кэши считают попадания, промахи и вытеснения, их отдаёт {@link #getRegions()}
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+public class GuavaRegionFactory extends RegionFactoryTemplate {
+
+    private static final String MAX_ENTRIES = "truckapp.cache.%s.max-entries";
+
+    private final Map<String, Cache<Object, Object>> regions = new ConcurrentHashMap<>();
+
+    private Map<?, ?> configValues;
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map configValues) {
+        this.configValues = configValues;
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        regions.values().forEach(Cache::invalidateAll);
+        regions.clear();
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        return new GuavaStorageAccess(boundedRegion(regionConfig.getRegionName()));
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+                                                                  SessionFactoryImplementor sessionFactory) {
+        return new GuavaStorageAccess(boundedRegion(regionName));
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+                                                                SessionFactoryImplementor sessionFactory) {
+        return new GuavaStorageAccess(region(regionName, CacheBuilder.newBuilder()));
+    }
+
+    /**
+     * @return кэши регионов по имени региона
+     */
+    public Map<String, Cache<Object, Object>> getRegions() {
+        return Collections.unmodifiableMap(regions);
+    }
+
+    private Cache<Object, Object> boundedRegion(String regionName) {
+        Object maxEntries = configValues.get(String.format(MAX_ENTRIES, regionName));
+        if (maxEntries == null)
+            throw new CacheException("No size for cache region " + regionName + ", set "
+                    + String.format(MAX_ENTRIES, regionName));
+        return region(regionName, CacheBuilder.newBuilder().maximumSize(Long.parseLong(maxEntries.toString().trim())));
+    }
+
+    private Cache<Object, Object> region(String regionName, CacheBuilder<Object, Object> builder) {
+        Cache<Object, Object> cache = builder.recordStats().build();
+        regions.put(regionName, cache);
+        return cache;
+    }
+
+    /**
+     * Хранилище региона в кэше Guava
+     */
+    private static final class GuavaStorageAccess implements DomainDataStorageAccess {
+
+        private final Cache<Object, Object> cache;
+
+        private GuavaStorageAccess(Cache<Object, Object> cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            return cache.getIfPresent(key);
+        }
+
+        @Override
+        public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            if (value == null)
+                cache.invalidate(key);
+            else
+                cache.put(key, value);
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return cache.asMap().containsKey(key);
+        }
+
+        @Override
+        public void evictData() {
+            cache.invalidateAll();
+        }
+
+        @Override
+        public void evictData(Object key) {
+            cache.invalidate(key);
+        }
+
+        @Override
+        public void release() {
+            cache.invalidateAll();
+        }
+    }
+}
@@ -3,8 +3,7 @@ package truckapp.configuration;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
 
 import java.util.Properties;
 
@@ -32,13 +31,26 @@ public class MailConfig {
     @Value("${mail.debug}")
     private String debug;
 
+    @Value("${truckapp.mail.pool.max-connections}")
+    private int maxConnections;
+
+    @Value("${truckapp.mail.pool.max-idle-ms}")
+    private long maxIdleMillis;
+
+    @Value("${truckapp.mail.pool.max-messages-per-connection}")
+    private int maxMessagesPerConnection;
+
+    @Value("${truckapp.mail.pool.max-wait-ms}")
+    private long maxWaitMillis;
+
     /**
-     * Создание бина MailSender
+     * Создание бина MailSender с пулом соединений
      * @return
      */
     @Bean
-    public JavaMailSender getMailSender() {
-        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+    public PooledJavaMailSender getMailSender() {
+        PooledJavaMailSender mailSender = new PooledJavaMailSender(maxConnections, maxIdleMillis,
+                maxMessagesPerConnection, maxWaitMillis);
         mailSender.setHost(host);
         mailSender.setPort(port);
         mailSender.setUsername(username);
@@ -48,4 +60,12 @@ public class MailConfig {
         properties.setProperty("mail.debug", debug);
         return mailSender;
     }
+
+    /**
+     * Закрытие простаивающих соединений с почтовым сервером
+     */
+    @Scheduled(fixedDelayString = "${truckapp.mail.pool.eviction-interval-ms}")
+    public void evictIdleMailConnections() {
+        getMailSender().evictIdle();
+    }
 }
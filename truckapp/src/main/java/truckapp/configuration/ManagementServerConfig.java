@@ -0,0 +1,67 @@
+package truckapp.configuration;
+
+import truckapp.metrics.HttpMetricsFilter;
+import truckapp.metrics.MetricsRegistry;
+import org.apache.catalina.connector.Connector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Конфигурация порта управления.
+ * Tomcat открывает дополнительный коннектор, на котором {@link HttpMetricsFilter} отдаёт метрики в формате Prometheus.
+ * Порт не публикуется наружу балансировщиком, поэтому метрики не видны пользователям
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@Configuration
+public class ManagementServerConfig {
+
+    @Value("${truckapp.management.port}")
+    private int port;
+
+    @Value("${truckapp.management.metrics-path}")
+    private String metricsPath;
+
+    /**
+     * Коннектор порта управления
+     * @return коннектор
+     */
+    @Bean
+    public Connector managementConnector() {
+        Connector connector = new Connector(TomcatServletWebServerFactory.DEFAULT_PROTOCOL);
+        connector.setPort(port);
+        return connector;
+    }
+
+    /**
+     * Добавление коннектора порта управления во встроенный Tomcat
+     * @param managementConnector коннектор порта управления
+     * @return настройка Tomcat
+     */
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> managementConnectorCustomizer(Connector managementConnector) {
+        return factory -> factory.addAdditionalTomcatConnectors(managementConnector);
+    }
+
+    /**
+     * Регистрация фильтра метрик раньше фильтров Spring Security,
+     * чтобы в замер попадали и запросы, отклонённые при проверке доступа
+     * @param metricsRegistry реестр метрик
+     * @param managementConnector коннектор порта управления
+     * @return регистрация фильтра
+     */
+    @Bean
+    public FilterRegistrationBean<HttpMetricsFilter> httpMetricsFilter(MetricsRegistry metricsRegistry,
+                                                                       Connector managementConnector) {
+        FilterRegistrationBean<HttpMetricsFilter> registration =
+                new FilterRegistrationBean<>(new HttpMetricsFilter(metricsRegistry, managementConnector, metricsPath));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,23 @@
+package truckapp.configuration;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Исключение, выбрасываемое, когда очередь хеширования паролей заполнена.
+ * Запрос завершается ответом 503, чтобы клиент повторил его позже
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    /**
+     * параметризованный конструктор
+     * @param message текст ошибки
+     */
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,239 @@
+package truckapp.configuration;
+
+import com.google.common.hash.Hashing;
+import truckapp.dto.UserRow;
+import truckapp.metrics.Timed;
+import truckapp.services.UserCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Постоянный вход "запомнить меня" по серии и токену из cookie.
+ * Серия выдаётся при входе по паролю, токен заменяется при каждом восстановлении входа.
+ * Проверка - одно чтение remember_me8 по первичному ключу и сравнение SHA-256 токена за постоянное время,
+ * без bcrypt. Если предъявлен токен, который уже был заменён, cookie считается украденным
+ * и все постоянные входы пользователя отзываются. Старый токен принимается только в течение
+ * truckapp.token.remember-me-grace-seconds после замены, чтобы параллельные запросы браузера
+ * со старым cookie не отзывали вход
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@Component
+public class PersistentLoginService {
+
+    /**
+     * cookie с серией и токеном постоянного входа
+     */
+    public static final String REMEMBER_ME_COOKIE = "remember_me";
+
+    private static final Logger log = LoggerFactory.getLogger(PersistentLoginService.class);
+
+    private static final int SERIES_BYTES = 16;
+
+    private static final int TOKEN_BYTES = 32;
+
+    private static final String INSERT =
+            "insert into remember_me8 (series, user_id, token_hash, last_used) values (?, ?, ?, ?)";
+
+    private static final String FIND =
+            "select r.user_id, r.token_hash, r.previous_token_hash, r.last_used, u.username " +
+            "from remember_me8 r join user8 u on u.id = r.user_id where r.series = ?";
+
+    private static final String ROTATE =
+            "update remember_me8 set token_hash = ?, previous_token_hash = token_hash, last_used = ? " +
+            "where series = ? and token_hash = ?";
+
+    private static final String DELETE = "delete from remember_me8 where series = ?";
+
+    private static final String DELETE_ALL = "delete from remember_me8 where user_id = ?";
+
+    private static final String DELETE_EXPIRED_BATCH =
+            "delete from remember_me8 where series in (" +
+            "    select series from remember_me8 where last_used <= ? limit ? for update skip locked)";
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Value("${truckapp.token.remember-me-ttl-seconds}")
+    private long ttlSeconds;
+
+    @Value("${truckapp.token.remember-me-grace-seconds}")
+    private long graceSeconds;
+
+    @Value("${truckapp.user-token.sweep-batch-size}")
+    private int sweepBatchSize;
+
+    /**
+     * Выдача новой серии после входа по паролю
+     * @param userId id пользователя
+     * @param response ответ
+     */
+    public void create(long userId, HttpServletResponse response) {
+        String series = randomString(SERIES_BYTES);
+        String token = randomString(TOKEN_BYTES);
+        jdbcTemplate.update(INSERT, series, userId, hash(token), Timestamp.valueOf(LocalDateTime.now()));
+        setCookie(response, series, token);
+    }
+
+    /**
+     * Восстановление входа по cookie с заменой токена
+     * @param request запрос
+     * @param response ответ, в который записывается новый токен
+     * @return пользователь или null, если cookie нет, серия неизвестна, истекла или отозвана
+     */
+    public UserRow authenticate(HttpServletRequest request, HttpServletResponse response) {
+        Cookie cookie = WebUtils.getCookie(request, REMEMBER_ME_COOKIE);
+        if (cookie == null)
+            return null;
+        String value = cookie.getValue();
+        int dot = value.indexOf('.');
+        if (dot < 0) {
+            clear(response);
+            return null;
+        }
+        String series = value.substring(0, dot);
+        String token = value.substring(dot + 1);
+        List<Login> logins = jdbcTemplate.query(FIND, (rs, rowNum) -> new Login(rs.getLong(1), rs.getString(2),
+                rs.getString(3), rs.getTimestamp(4).toLocalDateTime(), rs.getString(5)), series);
+        if (logins.isEmpty()) {
+            clear(response);
+            return null;
+        }
+        Login login = logins.get(0);
+        LocalDateTime now = LocalDateTime.now();
+        if (login.lastUsed.plusSeconds(ttlSeconds).isBefore(now)) {
+            jdbcTemplate.update(DELETE, series);
+            clear(response);
+            return null;
+        }
+        String tokenHash = hash(token);
+        if (sameHash(tokenHash, login.tokenHash)) {
+            String newToken = randomString(TOKEN_BYTES);
+            if (jdbcTemplate.update(ROTATE, hash(newToken), Timestamp.valueOf(now), series, login.tokenHash) == 1)
+                setCookie(response, series, newToken);
+        }
+        else if (!sameHash(tokenHash, login.previousTokenHash)
+                || login.lastUsed.plusSeconds(graceSeconds).isBefore(now)) {
+            log.warn("Replayed remember-me token for user {}, revoking all persistent logins", login.username);
+            removeAll(login.userId);
+            clear(response);
+            return null;
+        }
+        return userCache.findByUsername(login.username);
+    }
+
+    /**
+     * Удаление серии из cookie при выходе
+     * @param request запрос
+     * @param response ответ
+     */
+    public void remove(HttpServletRequest request, HttpServletResponse response) {
+        Cookie cookie = WebUtils.getCookie(request, REMEMBER_ME_COOKIE);
+        if (cookie != null) {
+            int dot = cookie.getValue().indexOf('.');
+            if (dot > 0)
+                jdbcTemplate.update(DELETE, cookie.getValue().substring(0, dot));
+        }
+        clear(response);
+    }
+
+    /**
+     * Отзыв всех постоянных входов пользователя, например после смены пароля
+     * @param userId id пользователя
+     */
+    public void removeAll(Long userId) {
+        jdbcTemplate.update(DELETE_ALL, userId);
+    }
+
+    /**
+     * Удаление cookie постоянного входа
+     * @param response ответ
+     */
+    public void clear(HttpServletResponse response) {
+        tokenService.addCookie(response, REMEMBER_ME_COOKIE, "", 0);
+    }
+
+    /**
+     * Удаление серий, которые не использовались дольше срока действия
+     */
+    @Timed(value = "truckapp_expired_remember_me_deletion", help = "Expired remember-me series deletion runs")
+    @Scheduled(fixedDelayString = "${truckapp.user-token.sweep-interval-ms}")
+    public void deleteExpired() {
+        Timestamp threshold = Timestamp.valueOf(LocalDateTime.now().minusSeconds(ttlSeconds));
+        long start = System.currentTimeMillis();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(DELETE_EXPIRED_BATCH, threshold, sweepBatchSize);
+            total += deleted;
+        } while (deleted == sweepBatchSize);
+        if (total > 0)
+            log.info("Deleted {} expired remember-me series in {} ms", total, System.currentTimeMillis() - start);
+    }
+
+    private void setCookie(HttpServletResponse response, String series, String token) {
+        tokenService.addCookie(response, REMEMBER_ME_COOKIE, series + '.' + token, ttlSeconds);
+    }
+
+    private String randomString(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String hash(String token) {
+        return Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString();
+    }
+
+    private static boolean sameHash(String presented, String stored) {
+        return stored != null && MessageDigest.isEqual(presented.getBytes(StandardCharsets.US_ASCII),
+                stored.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static final class Login {
+
+        private final long userId;
+
+        private final String tokenHash;
+
+        private final String previousTokenHash;
+
+        private final LocalDateTime lastUsed;
+
+        private final String username;
+
+        private Login(long userId, String tokenHash, String previousTokenHash, LocalDateTime lastUsed, String username) {
+            this.userId = userId;
+            this.tokenHash = tokenHash;
+            this.previousTokenHash = previousTokenHash;
+            this.lastUsed = lastUsed;
+            this.username = username;
+        }
+    }
+}
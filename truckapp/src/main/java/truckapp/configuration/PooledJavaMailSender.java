@@ -0,0 +1,213 @@
+package truckapp.configuration;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import javax.mail.Address;
+import javax.mail.AuthenticationFailedException;
+import javax.mail.MessagingException;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JavaMailSender, который не закрывает соединение с почтовым сервером после отправки.
+ * Авторизованные соединения возвращаются в пул и используются повторно,
+ * пока не отправят заданное количество писем или не простоят дольше допустимого.
+ * Одновременно открыто не больше maxConnections соединений
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    private static final String HEADER_MESSAGE_ID = "Message-ID";
+
+    private final BlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+
+    private final Semaphore permits;
+
+    private final long maxIdleMillis;
+
+    private final int maxMessagesPerConnection;
+
+    private final long maxWaitMillis;
+
+    /**
+     * параметризованный конструктор
+     * @param maxConnections максимальное количество открытых соединений
+     * @param maxIdleMillis время простоя, после которого соединение закрывается
+     * @param maxMessagesPerConnection количество писем, после которого соединение закрывается
+     * @param maxWaitMillis время ожидания свободного соединения
+     */
+    public PooledJavaMailSender(int maxConnections, long maxIdleMillis, int maxMessagesPerConnection, long maxWaitMillis) {
+        this.permits = new Semaphore(maxConnections, true);
+        this.maxIdleMillis = maxIdleMillis;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Отправка писем через одно соединение из пула.
+     * Порядок заполнения заголовков и сбор ошибок повторяют {@link JavaMailSenderImpl}
+     * @param mimeMessages письма
+     * @param originalMessages исходные объекты писем для отчёта об ошибках, может быть null
+     * @throws MailException
+     */
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+        acquire(mimeMessages, originalMessages);
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        PooledTransport connection = idle.pollFirst();
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                MimeMessage mimeMessage = mimeMessages[i];
+                Object original = originalMessages != null ? originalMessages[i] : mimeMessage;
+                try {
+                    while (connection != null && !isUsable(connection)) {
+                        close(connection);
+                        connection = idle.pollFirst();
+                    }
+                    if (connection == null)
+                        connection = connect();
+                    if (mimeMessage.getSentDate() == null)
+                        mimeMessage.setSentDate(new Date());
+                    String messageId = mimeMessage.getMessageID();
+                    mimeMessage.saveChanges();
+                    if (messageId != null)
+                        mimeMessage.setHeader(HEADER_MESSAGE_ID, messageId);
+                    Address[] addresses = mimeMessage.getAllRecipients();
+                    connection.sent++;
+                    connection.transport.sendMessage(mimeMessage, addresses != null ? addresses : new Address[0]);
+                }
+                catch (AuthenticationFailedException e) {
+                    throw new MailAuthenticationException(e);
+                }
+                catch (Exception e) {
+                    if (connection != null)
+                        connection.verified = false;
+                    failedMessages.put(original, e);
+                }
+            }
+        }
+        finally {
+            release(connection);
+        }
+        if (!failedMessages.isEmpty())
+            throw new MailSendException(failedMessages);
+    }
+
+    /**
+     * Закрытие соединений, простоявших дольше допустимого
+     */
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        for (PooledTransport connection : new ArrayList<>(idle)) {
+            if (now - connection.releasedAt > maxIdleMillis && idle.remove(connection))
+                close(connection);
+        }
+    }
+
+    /**
+     * Закрытие всех свободных соединений при остановке приложения
+     */
+    @Override
+    public void destroy() {
+        List<PooledTransport> connections = new ArrayList<>();
+        idle.drainTo(connections);
+        for (PooledTransport connection : connections)
+            close(connection);
+    }
+
+    private void acquire(MimeMessage[] mimeMessages, Object[] originalMessages) {
+        Exception failure;
+        try {
+            if (permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS))
+                return;
+            failure = new IllegalStateException("No free mail connection within " + maxWaitMillis + " ms");
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        }
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        for (int i = 0; i < mimeMessages.length; i++)
+            failedMessages.put(originalMessages != null ? originalMessages[i] : mimeMessages[i], failure);
+        throw new MailSendException(failure.getMessage(), failure, failedMessages);
+    }
+
+    private PooledTransport connect() throws MessagingException {
+        PooledTransport connection = new PooledTransport(connectTransport());
+        connection.verified = true;
+        return connection;
+    }
+
+    /**
+     * Проверка соединения. isConnected() отправляет серверу NOOP,
+     * поэтому вызывается только для соединения, взятого из пула или после ошибки
+     */
+    private boolean isUsable(PooledTransport connection) {
+        if (connection.sent >= maxMessagesPerConnection)
+            return false;
+        if (!connection.verified) {
+            if (System.currentTimeMillis() - connection.releasedAt > maxIdleMillis || !connection.transport.isConnected())
+                return false;
+            connection.verified = true;
+        }
+        return true;
+    }
+
+    private void release(PooledTransport connection) {
+        try {
+            if (connection != null) {
+                if (connection.sent < maxMessagesPerConnection) {
+                    connection.releasedAt = System.currentTimeMillis();
+                    connection.verified = false;
+                    idle.offerFirst(connection);
+                }
+                else
+                    close(connection);
+            }
+        }
+        finally {
+            permits.release();
+        }
+    }
+
+    private static void close(PooledTransport connection) {
+        try {
+            connection.transport.close();
+        }
+        catch (MessagingException ignored) {
+        }
+    }
+
+    /**
+     * Соединение с почтовым сервером и количество отправленных через него писем
+     */
+    private static final class PooledTransport {
+
+        private final Transport transport;
+
+        private int sent;
+
+        private boolean verified;
+
+        private long releasedAt = System.currentTimeMillis();
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package truckapp.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.StatementCallback;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Применение версионированных sql-миграций из classpath:db/migration.
+ * Файл V&lt;версия&gt;__&lt;описание&gt;.sql выполняется один раз, целиком, одной командой
+ * в режиме autocommit, поэтому CREATE INDEX CONCURRENTLY нужно помещать в отдельный файл.
+ * Прерванная сборка такого индекса оставляет недействительный индекс, который IF NOT EXISTS
+ * пропустил бы молча: перед выполнением миграции он удаляется, а после выполнения индекс проверяется
+ * по pg_index.indisvalid, и миграция не записывается применённой, пока индекс не годен.
+ * Сообщения RAISE NOTICE и RAISE WARNING из миграций выводятся в журнал приложения.
+ * Применённые версии записываются в таблицу schema_migration8, а одновременный запуск
+ * нескольких экземпляров приложения разделяется advisory lock, который берётся до создания этой таблицы.
+ * Миграция с версией ниже последней применённой не выполняется, пока это явно не разрешено
+ * truckapp.migrations.allow-out-of-order: так, например, базовая схема V0 применяется к бд,
+ * мигрированной до её появления, только по решению администратора.
+ * Миграции применяются до создания EntityManagerFactory: схему ведут только они,
+ * а Hibernate лишь проверяет, что она совпадает с моделями (ddl-auto=validate)
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@Component
+public class SchemaMigrations {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrations.class);
+
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    private static final Pattern CONCURRENT_INDEX = Pattern.compile(
+            "create\\s+(?:unique\\s+)?index\\s+concurrently\\s+(?:if\\s+not\\s+exists\\s+)?(\\w+)",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final String INDEX_VALID =
+            "select i.indisvalid from pg_index i where i.indexrelid = to_regclass(?)";
+
+    private static final String SQL_STATE_WARNING = "01";
+
+    private static final long LOCK_KEY = 8_080_808L;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${truckapp.migrations.allow-out-of-order}")
+    private boolean allowOutOfOrder;
+
+    /**
+     * Применение всех ещё не применённых миграций в порядке версий
+     * @throws IOException
+     * @throws SQLException
+     */
+    @PostConstruct
+    public void migrate() throws IOException, SQLException {
+        Resource[] scripts = new PathMatchingResourcePatternResolver()
+                .getResources("classpath*:db/migration/V*__*.sql");
+        Arrays.sort(scripts, Comparator.comparingInt(SchemaMigrations::versionOf));
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            jdbcTemplate.queryForList("select pg_advisory_lock(?)", LOCK_KEY);
+            try {
+                jdbcTemplate.execute("create table if not exists schema_migration8 (" +
+                        "version integer primary key, " +
+                        "description varchar(255) not null, " +
+                        "applied_on timestamp not null default now())");
+                Set<Integer> applied = new HashSet<>(
+                        jdbcTemplate.queryForList("select version from schema_migration8", Integer.class));
+                int latest = applied.stream().mapToInt(Integer::intValue).max().orElse(-1);
+                for (Resource script : scripts) {
+                    int version = versionOf(script);
+                    if (applied.contains(version))
+                        continue;
+                    if (version < latest) {
+                        if (!allowOutOfOrder)
+                            throw new IllegalStateException("Migration " + script.getFilename()
+                                    + " is older than the latest applied version " + latest
+                                    + "; renumber it or set truckapp.migrations.allow-out-of-order=true");
+                        log.warn("Applying migration {} out of order, latest applied version is {}",
+                                script.getFilename(), latest);
+                    }
+                    String sql = StreamUtils.copyToString(script.getInputStream(), StandardCharsets.UTF_8);
+                    List<String> indexes = concurrentIndexes(sql);
+                    for (String index : indexes) {
+                        if (Boolean.FALSE.equals(isValid(jdbcTemplate, index))) {
+                            log.warn("Dropping invalid index {} left by an interrupted build", index);
+                            jdbcTemplate.execute("drop index concurrently if exists " + index);
+                        }
+                    }
+                    long start = System.currentTimeMillis();
+                    execute(jdbcTemplate, script, sql);
+                    for (String index : indexes) {
+                        if (!Boolean.TRUE.equals(isValid(jdbcTemplate, index))) {
+                            jdbcTemplate.execute("drop index concurrently if exists " + index);
+                            throw new IllegalStateException("Migration " + script.getFilename()
+                                    + " did not build a valid index " + index);
+                        }
+                    }
+                    jdbcTemplate.update("insert into schema_migration8 (version, description) values (?, ?)",
+                            version, descriptionOf(script));
+                    log.info("Applied migration {} in {} ms", script.getFilename(), System.currentTimeMillis() - start);
+                }
+            }
+            finally {
+                jdbcTemplate.queryForList("select pg_advisory_unlock(?)", LOCK_KEY);
+            }
+        }
+    }
+
+    private static void execute(JdbcTemplate jdbcTemplate, Resource script, String sql) {
+        jdbcTemplate.execute((StatementCallback<Void>) statement -> {
+            statement.execute(sql);
+            for (SQLWarning warning = statement.getWarnings(); warning != null; warning = warning.getNextWarning()) {
+                if (warning.getSQLState() != null && warning.getSQLState().startsWith(SQL_STATE_WARNING))
+                    log.warn("{}: {}", script.getFilename(), warning.getMessage());
+                else
+                    log.info("{}: {}", script.getFilename(), warning.getMessage());
+            }
+            return null;
+        });
+    }
+
+    private static List<String> concurrentIndexes(String sql) {
+        List<String> indexes = new ArrayList<>();
+        Matcher matcher = CONCURRENT_INDEX.matcher(sql.replaceAll("--[^\\n]*", ""));
+        while (matcher.find())
+            indexes.add(matcher.group(1));
+        return indexes;
+    }
+
+    private static Boolean isValid(JdbcTemplate jdbcTemplate, String index) {
+        List<Boolean> valid = jdbcTemplate.queryForList(INDEX_VALID, Boolean.class, index);
+        return valid.isEmpty() ? null : valid.get(0);
+    }
+
+    private static int versionOf(Resource script) {
+        return Integer.parseInt(parse(script).group(1));
+    }
+
+    private static String descriptionOf(Resource script) {
+        return parse(script).group(2).replace('_', ' ');
+    }
+
+    private static Matcher parse(Resource script) {
+        Matcher matcher = FILE_NAME.matcher(script.getFilename());
+        if (!matcher.matches())
+            throw new IllegalStateException("Unexpected migration file name: " + script.getFilename());
+        return matcher;
+    }
+
+    /**
+     * Создание EntityManagerFactory после применения миграций
+     */
+    @Component
+    static class EntityManagerFactoryDependency extends EntityManagerFactoryDependsOnPostProcessor {
+
+        EntityManagerFactoryDependency() {
+            super("schemaMigrations");
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package truckapp.configuration;
+
+import truckapp.dto.UserRow;
+import truckapp.model.AuthenticatedUser;
+import truckapp.services.UserCache;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Фильтр, восстанавливающий вход пользователя по подписанным токенам из cookie вместо http-сессии.
+ * Действующий access-токен проверяется по подписи, а пользователь берётся из кэша
+ * и кладётся в контекст безопасности как {@link AuthenticatedUser}.
+ * Если access-токен истёк, вход восстанавливается по cookie постоянного входа и выпускается новый access-токен.
+ * Клиенты api могут передавать access-токен в заголовке Authorization: Bearer
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final TokenService tokenService;
+
+    private final PersistentLoginService persistentLoginService;
+
+    private final UserCache userCache;
+
+    /**
+     * параметризованный конструктор
+     * @param tokenService сервис токенов
+     * @param persistentLoginService сервис постоянного входа
+     * @param userCache кэш пользователей
+     */
+    public TokenAuthenticationFilter(TokenService tokenService, PersistentLoginService persistentLoginService,
+                                     UserCache userCache) {
+        this.tokenService = tokenService;
+        this.persistentLoginService = persistentLoginService;
+        this.userCache = userCache;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (SecurityContextHolder.getContext().getAuthentication() == null)
+            authenticate(request, response);
+        filterChain.doFilter(request, response);
+    }
+
+    private void authenticate(HttpServletRequest request, HttpServletResponse response) {
+        TokenService.Claims claims = tokenService.verifyAccess(accessToken(request));
+        if (claims != null) {
+            UserRow user = userCache.findByUsername(claims.getUsername());
+            if (user != null && user.getId() != null && user.getId() == claims.getUserId()) {
+                setAuthentication(AuthenticatedUser.of(user));
+                return;
+            }
+        }
+        UserRow user = persistentLoginService.authenticate(request, response);
+        if (user == null)
+            return;
+        AuthenticatedUser principal = AuthenticatedUser.of(user);
+        tokenService.issue(principal, response);
+        setAuthentication(principal);
+    }
+
+    private static void setAuthentication(AuthenticatedUser user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private static String accessToken(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization != null && authorization.startsWith(BEARER))
+            return authorization.substring(BEARER.length());
+        Cookie cookie = WebUtils.getCookie(request, TokenService.ACCESS_COOKIE);
+        return cookie == null ? null : cookie.getValue();
+    }
+}
@@ -0,0 +1,218 @@
+package truckapp.configuration;
+
+import truckapp.model.AuthenticatedUser;
+import truckapp.roles.Role;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Выпуск и проверка подписанных токенов входа.
+ * Токен - это base64url(данные).base64url(HMAC-SHA256(данные)), данные - строка
+ * "тип:id пользователя:срок действия:роли:никнейм". Короткоживущий access-токен подтверждает вход
+ * без обращения к сессии, а после его истечения вход восстанавливается через {@link PersistentLoginService}
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@Component
+public class TokenService {
+
+    /**
+     * cookie с access-токеном
+     */
+    public static final String ACCESS_COOKIE = "access_token";
+
+    private static final String ACCESS = "a";
+
+    private static final String HMAC_SHA256 = "HmacSHA256";
+
+    @Value("${truckapp.token.secret}")
+    private String secret;
+
+    @Value("${truckapp.token.access-ttl-seconds}")
+    private long accessTtlSeconds;
+
+    @Value("${truckapp.token.secure-cookie}")
+    private boolean secureCookie;
+
+    private SecretKeySpec key;
+
+    /**
+     * Проверка и подготовка ключа подписи. Ключа по умолчанию нет: без TRUCKAPP_TOKEN_SECRET приложение не запустится,
+     * а все реплики должны получать один и тот же ключ
+     */
+    @PostConstruct
+    public void init() {
+        if (secret == null || secret.trim().isEmpty())
+            throw new IllegalStateException("truckapp.token.secret is not set, provide TRUCKAPP_TOKEN_SECRET");
+        byte[] keyBytes;
+        try {
+            keyBytes = Base64.getDecoder().decode(secret.trim());
+        }
+        catch (IllegalArgumentException e) {
+            throw new IllegalStateException("truckapp.token.secret must be base64", e);
+        }
+        if (keyBytes.length < 32)
+            throw new IllegalStateException("truckapp.token.secret must hold at least 32 bytes");
+        key = new SecretKeySpec(keyBytes, HMAC_SHA256);
+    }
+
+    /**
+     * Выпуск access-токена и запись его в cookie
+     * @param user объект пользователя
+     * @param response ответ
+     */
+    public void issue(AuthenticatedUser user, HttpServletResponse response) {
+        long now = System.currentTimeMillis() / 1000;
+        addCookie(response, ACCESS_COOKIE, sign(ACCESS + ':' + user.getId() + ':' + (now + accessTtlSeconds) + ':'
+                + roles(user.getRoles()) + ':' + user.getUsername()), accessTtlSeconds);
+    }
+
+    /**
+     * Удаление cookie с access-токеном
+     * @param response ответ
+     */
+    public void clear(HttpServletResponse response) {
+        addCookie(response, ACCESS_COOKIE, "", 0);
+    }
+
+    /**
+     * Проверка access-токена
+     * @param token значение cookie
+     * @return данные токена или null, если подпись неверна или срок действия истёк
+     */
+    public Claims verifyAccess(String token) {
+        String[] fields = verify(token, ACCESS);
+        if (fields == null)
+            return null;
+        try {
+            return new Claims(Long.parseLong(fields[1]), fields[4], parseRoles(fields[3]));
+        }
+        catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private String[] verify(String token, String type) {
+        if (token == null)
+            return null;
+        int dot = token.indexOf('.');
+        if (dot < 0)
+            return null;
+        try {
+            byte[] payload = Base64.getUrlDecoder().decode(token.substring(0, dot));
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, hmac(payload)))
+                return null;
+            String[] fields = new String(payload, StandardCharsets.UTF_8).split(":", 5);
+            if (fields.length != 5 || !fields[0].equals(type))
+                return null;
+            if (Long.parseLong(fields[2]) < System.currentTimeMillis() / 1000)
+                return null;
+            return fields;
+        }
+        catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private String sign(String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(bytes) + '.' + encoder.encodeToString(hmac(bytes));
+    }
+
+    private byte[] hmac(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_SHA256);
+            mac.init(key);
+            return mac.doFinal(payload);
+        }
+        catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Запись httpOnly cookie с общими для токенов входа атрибутами
+     * @param response ответ
+     * @param name имя cookie
+     * @param value значение, пустое для удаления cookie
+     * @param maxAgeSeconds срок хранения cookie в браузере
+     */
+    void addCookie(HttpServletResponse response, String name, String value, long maxAgeSeconds) {
+        ResponseCookie cookie = ResponseCookie.from(name, value)
+                .httpOnly(true)
+                .secure(secureCookie)
+                .sameSite("Lax")
+                .path("/")
+                .maxAge(Duration.ofSeconds(maxAgeSeconds))
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+
+    private static String roles(Set<Role> roles) {
+        StringBuilder builder = new StringBuilder();
+        if (roles != null) {
+            for (Role role : roles) {
+                if (builder.length() > 0)
+                    builder.append(',');
+                builder.append(role.name());
+            }
+        }
+        return builder.toString();
+    }
+
+    private static Set<Role> parseRoles(String value) {
+        Set<Role> roles = EnumSet.noneOf(Role.class);
+        if (!value.isEmpty()) {
+            for (String role : value.split(","))
+                roles.add(Role.valueOf(role));
+        }
+        return roles;
+    }
+
+    /**
+     * Данные проверенного access-токена
+     */
+    public static final class Claims {
+
+        private final long userId;
+
+        private final String username;
+
+        private final Set<Role> roles;
+
+        private Claims(long userId, String username, Set<Role> roles) {
+            this.userId = userId;
+            this.username = username;
+            this.roles = roles;
+        }
+
+        public long getUserId() {
+            return userId;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public Set<Role> getRoles() {
+            return roles;
+        }
+    }
+}
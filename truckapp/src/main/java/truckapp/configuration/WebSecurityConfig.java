@@ -1,24 +1,37 @@
 package truckapp.configuration;
 
+import truckapp.metrics.MetricsRegistry;
 import truckapp.roles.Role;
 import truckapp.services.DetailsService;
+import truckapp.services.UserCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.NoOpPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Конфигурация Security
@@ -30,12 +43,40 @@ import javax.sql.DataSource;
 @EnableWebSecurity
 public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
 
+    private static final Logger log = LoggerFactory.getLogger(WebSecurityConfig.class);
+
+    private static final String BCRYPT = "bcrypt";
+
+    @Value("${truckapp.password.target-ms}")
+    private long targetHashMillis;
+
+    @Value("${truckapp.password.work-factor}")
+    private int workFactor;
+
+    @Value("${truckapp.password.threads}")
+    private int hashingThreads;
+
+    @Value("${truckapp.password.queue-capacity}")
+    private int hashingQueueCapacity;
+
     @Autowired
     private DataSource dataSource;
 
     @Autowired
     private DetailsService service;
 
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private PersistentLoginService persistentLoginService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
     /**
      * Настройка доступа страниц
      */
@@ -51,17 +92,31 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
                     .antMatchers("/resetPassword/*").permitAll()
                     .antMatchers("/resetPasswordAction").permitAll()
                     .antMatchers("/registration").permitAll()
+                    .antMatchers("/registration/usernameAvailable").permitAll()
                     .antMatchers("/registrationAction").permitAll()
                     .antMatchers("/activate/*").permitAll()
                     .antMatchers("/end").permitAll()
                 .antMatchers("/admin/**").hasAuthority(String.valueOf(Role.ADMIN))
+                .antMatchers("/api/v1/employees/**").hasAuthority(String.valueOf(Role.ADMIN))
                     .anyRequest().authenticated()
                 .and()
-                    .addFilterBefore(new CustomFilter("/login", authenticationManager()), UsernamePasswordAuthenticationFilter.class)
+                    .exceptionHandling()
+                    .defaultAuthenticationEntryPointFor(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED),
+                            new AntPathRequestMatcher("/api/**"))
+                .and()
+                    .sessionManagement()
+                    .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                .and()
+                    .addFilterBefore(new TokenAuthenticationFilter(tokenService, persistentLoginService, userCache), UsernamePasswordAuthenticationFilter.class)
+                    .addFilterBefore(new CustomFilter("/login", authenticationManager(), tokenService, persistentLoginService, metricsRegistry), UsernamePasswordAuthenticationFilter.class)
                     .formLogin()
                     .loginPage("/login").permitAll()
                 .and()
                     .logout()
+                    .addLogoutHandler((request, response, authentication) -> {
+                        persistentLoginService.remove(request, response);
+                        tokenService.clear(response);
+                    })
                     .logoutSuccessUrl("/")
                     .permitAll();
     }
@@ -80,12 +135,42 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
     }
 
     /**
-     * Создание бина BCryptPasswordEncoder
+     * Создание бина PasswordEncoder.
+     * Стоимость bcrypt задаётся в truckapp.password.work-factor, одна на все экземпляры приложения,
+     * а при запуске только замеряется время хеширования. Хеши с меньшей стоимостью или без префикса {bcrypt}
+     * пересчитываются при следующем входе пользователя, хеши с большей стоимостью не трогаются
      *
      * @return a {@link org.springframework.security.crypto.password.PasswordEncoder} object.
      */
     @Bean("pass")
-    public PasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder(12);
+    public BoundedPasswordEncoder passwordEncoder(){
+        measureHashTime();
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, new BCryptPasswordEncoder(workFactor));
+        DelegatingPasswordEncoder delegatingPasswordEncoder = new DelegatingPasswordEncoder(BCRYPT, encoders);
+        delegatingPasswordEncoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return new BoundedPasswordEncoder(delegatingPasswordEncoder, workFactor, hashingThreads, hashingQueueCapacity);
+    }
+
+    /**
+     * Замер времени хеширования с заданной стоимостью. Если хеширование дольше target-ms,
+     * стоимость стоит уменьшить в конфигурации всех экземпляров
+     */
+    private void measureHashTime() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(workFactor);
+        encoder.encode("calibration");
+        long[] samples = new long[3];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration");
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        long millis = samples[1] / 1_000_000;
+        if (millis > targetHashMillis)
+            log.warn("bcrypt work factor {} takes ~{} ms per hash, above truckapp.password.target-ms = {}",
+                    workFactor, millis, targetHashMillis);
+        else
+            log.info("bcrypt work factor {} (~{} ms per hash)", workFactor, millis);
     }
 }
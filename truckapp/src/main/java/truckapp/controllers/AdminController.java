@@ -1,8 +1,8 @@
 package truckapp.controllers;
 
+import truckapp.model.AuthenticatedUser;
 import truckapp.model.Employee;
 import truckapp.model.Truck;
-import truckapp.model.User;
 import truckapp.services.AdminService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -27,42 +27,55 @@ public class AdminController {
     /**
      * Возврат страницы администратора
      *
+     * @param ordersToken токен страницы заказов
+     * @param employeesToken токен страницы сотрудников
      * @param model модель веб-страницы
      * @return admin - страница администратора
      */
     @GetMapping("/main")
-    public String adminPage(@AuthenticationPrincipal User user, Model model) {
-        return adminService.getAdminPage(user, model);
+    public String adminPage(@AuthenticationPrincipal AuthenticatedUser user,
+                            @RequestParam(value = "orders", required = false) String ordersToken,
+                            @RequestParam(value = "employees", required = false) String employeesToken,
+                            Model model) {
+        return adminService.getAdminPage(user, ordersToken, employeesToken, model);
     }
 
     /**
      * метод поиска заказов указанного пользователя
      * @param user авторизированный пользователь
      * @param username имя пользователя, заказы которого нужно найти
+     * @param page номер страницы результатов поиска
      * @param model модель веб-страницы
      * @return перенаправление на страницу администратора или возврат страницы администратора
      */
     @GetMapping("/searchByUsername")
-    public String searchForUsername(@AuthenticationPrincipal User user, @RequestParam("username") String username, Model model) {
+    public String searchForUsername(@AuthenticationPrincipal AuthenticatedUser user,
+                                    @RequestParam("username") String username,
+                                    @RequestParam(value = "page", defaultValue = "0") int page,
+                                    Model model) {
         adminService.checkUserActivationCode(user, model);
-        return adminService.searchUsers(username, model);
+        return adminService.searchUsers(username, page, model);
     }
 
     /**
      * метод поиска сотрудников
      * @param user авторизированный пользователь
      * @param employee имя сотрудника
+     * @param page номер страницы результатов поиска
      * @param model модель веб-страницы
      * @return перенаправление на страницу администратора или возврат страницы администратора
      */
     @GetMapping("/searchEmployee")
-    public String searchEmployee(@AuthenticationPrincipal User user, @RequestParam("employee") String employee, Model model) {
+    public String searchEmployee(@AuthenticationPrincipal AuthenticatedUser user,
+                                 @RequestParam("employee") String employee,
+                                 @RequestParam(value = "page", defaultValue = "0") int page,
+                                 Model model) {
         adminService.checkUserActivationCode(user, model);
-        return adminService.checkEmployees(employee, model);
+        return adminService.checkEmployees(employee, page, model);
     }
 
     @GetMapping("addNewEmployeeOrCar")
-    public String getPageAddNewEmployeeOrCar(@AuthenticationPrincipal User user, Model model) {
+    public String getPageAddNewEmployeeOrCar(@AuthenticationPrincipal AuthenticatedUser user, Model model) {
         model.addAttribute("user", user);
         model.addAttribute("car-form", new Truck());
         model.addAttribute("employee-form", new Employee());
@@ -72,7 +85,7 @@ public class AdminController {
     @PostMapping("/addCar")
     public String addNewCar(@ModelAttribute("car-form") Truck truck,
                             @RequestParam("truckDescription") String truckDescription,
-                            @AuthenticationPrincipal User user,
+                            @AuthenticationPrincipal AuthenticatedUser user,
                             BindingResult bindingResult,
                             Model model) {
         truck.setDescription(truckDescription);
@@ -81,7 +94,7 @@ public class AdminController {
 
     @PostMapping("/addEmployee")
     public String addNewEmployee(@ModelAttribute("employee-form") Employee employee,
-                                 @AuthenticationPrincipal User user,
+                                 @AuthenticationPrincipal AuthenticatedUser user,
                                  BindingResult bindingResult,
                                  Model model) {
         return adminService.addingEmployee(employee, user, bindingResult, model);
@@ -1,5 +1,6 @@
 package truckapp.controllers;
 
+import truckapp.model.AuthenticatedUser;
 import truckapp.model.User;
 import truckapp.roles.Role;
 import truckapp.services.AuthorizationService;
@@ -11,8 +12,6 @@ import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
-import javax.servlet.http.HttpServletRequest;
-
 /**
  * Контроллер, отвечающий за регистрацию и атворизацию
  *
@@ -32,8 +31,8 @@ public class AuthorizationController {
      * @return страницу авторизации
      */
     @GetMapping("/login")
-    public String authorizationPage(@RequestParam(required = false) String error, @AuthenticationPrincipal User user, Model model, HttpServletRequest request) {
-        return authorizationService.checkAuthority(error, user, model, request);
+    public String authorizationPage(@RequestParam(required = false) String error, @AuthenticationPrincipal AuthenticatedUser user, Model model) {
+        return authorizationService.checkAuthority(error, user, model);
     }
 
     /**
@@ -44,12 +43,24 @@ public class AuthorizationController {
      * @return страницу регистрации
      */
     @GetMapping("/registration")
-    public String registration(@AuthenticationPrincipal User user, Model model) {
+    public String registration(@AuthenticationPrincipal AuthenticatedUser user, Model model) {
         model.addAttribute("user", user);
         model.addAttribute("userForm", new User());
         return "registration";
     }
 
+    /**
+     * Проверка никнейма при заполнении формы регистрации.
+     * Свободный никнейм подтверждается фильтром занятых значений без запроса к бд
+     * @param username никнейм
+     * @return true, если никнейм свободен
+     */
+    @GetMapping("/registration/usernameAvailable")
+    @ResponseBody
+    public boolean usernameAvailable(@RequestParam("username") String username) {
+        return authorizationService.isUsernameAvailable(username);
+    }
+
     /**
      * Непосредственная регистрация нового пользователя с проверкой вводимых данных
      *
@@ -86,7 +97,7 @@ public class AuthorizationController {
      * @return страница восстановления пароля
      */
     @GetMapping("/forgetPassword")
-    public String getForgetPasswordPage(@AuthenticationPrincipal User user, Model model) {
+    public String getForgetPasswordPage(@AuthenticationPrincipal AuthenticatedUser user, Model model) {
         model.addAttribute("user", user);
         return "forgetPassword";
     }
@@ -99,7 +110,7 @@ public class AuthorizationController {
      * @return страницу восстановления пароля или перенаправление на страницу авторизации
      */
     @PostMapping("/forgetPasswordAction")
-    public String forgetPasswordAction(@AuthenticationPrincipal User user,
+    public String forgetPasswordAction(@AuthenticationPrincipal AuthenticatedUser user,
                                        @RequestParam("email") String email,
                                        Model model) {
         return authorizationService.forgetPasswordAction(user, email, model);
@@ -113,7 +124,7 @@ public class AuthorizationController {
      * @return страницу восстановления пароля
      */
     @GetMapping("/resetPassword/{resetPasswordToken}")
-    public String getResetPasswordPage(@AuthenticationPrincipal User user,
+    public String getResetPasswordPage(@AuthenticationPrincipal AuthenticatedUser user,
                                        @PathVariable String resetPasswordToken,
                                        Model model) {
         model.addAttribute("user", user);
@@ -130,7 +141,7 @@ public class AuthorizationController {
      * @return страницу восстановления пароля или перенаправление на страницу авторизации
      */
     @PostMapping("/resetPasswordAction")
-    public String resetPasswordAction(@AuthenticationPrincipal User user,
+    public String resetPasswordAction(@AuthenticationPrincipal AuthenticatedUser user,
                                       @ModelAttribute("token") String token,
                                       @ModelAttribute("password") String password,
                                       Model model) {
@@ -0,0 +1,42 @@
+package truckapp.controllers;
+
+import truckapp.dto.EmployeeRow;
+import truckapp.services.EmployeeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * REST контроллер сотрудников, доступен администратору
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@RestController
+@RequestMapping("/api/v1/employees")
+public class EmployeeApiController {
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Выгрузка всех сотрудников с количеством назначенных заказов
+     * @param webRequest запрос
+     * @param response ответ с json-массивом сотрудников
+     * @throws IOException при ошибке записи ответа
+     */
+    @GetMapping
+    public void list(WebRequest webRequest, HttpServletResponse response) throws IOException {
+        JsonArrayResponse.<EmployeeRow>write(objectMapper, employeeService.findVersion(), webRequest, response,
+                employeeService::forEachEmployeeRow);
+    }
+}
@@ -1,6 +1,6 @@
 package truckapp.controllers;
 
-import truckapp.model.User;
+import truckapp.model.AuthenticatedUser;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -17,7 +17,7 @@ public class ErrorController {
      * @return веб-страница error
      */
     @GetMapping("/error")
-    public String getErrorPage(@AuthenticationPrincipal User user, Model model) {
+    public String getErrorPage(@AuthenticationPrincipal AuthenticatedUser user, Model model) {
         model.addAttribute("user", user);
         return "error";
     }
@@ -0,0 +1,59 @@
+package truckapp.controllers;
+
+import truckapp.diagnostics.FlightRecorderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Контроллер выгрузки постоянной записи Flight Recorder для администратора
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@RestController
+@RequestMapping("/admin")
+public class FlightRecordingController {
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Autowired
+    private FlightRecorderService flightRecorderService;
+
+    /**
+     * Выгрузка записи файлом .jfr, который открывается в JDK Mission Control или командой jfr print
+     * @param response ответ с файлом записи или 404, если запись выключена
+     * @throws IOException при ошибке выгрузки или записи ответа
+     */
+    @GetMapping("/flightRecording")
+    public void flightRecording(HttpServletResponse response) throws IOException {
+        if (!flightRecorderService.isRecording()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Continuous recording is off");
+            return;
+        }
+        Path file = flightRecorderService.dump();
+        try {
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setContentLengthLong(Files.size(file));
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                    .filename("truckapp-" + FILE_TIME.format(LocalDateTime.now()) + ".jfr")
+                    .build()
+                    .toString());
+            Files.copy(file, response.getOutputStream());
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
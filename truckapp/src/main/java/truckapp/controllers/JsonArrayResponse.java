@@ -0,0 +1,66 @@
+package truckapp.controllers;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.WebRequest;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Запись строк в ответ api в виде json-массива по мере их чтения из бд, без накопления всего результата в памяти.
+ * ETag ответа - версия данных, получаемая из бд до чтения строк,
+ * поэтому при совпадении с If-None-Match строки не читаются и ответ завершается кодом 304
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+public final class JsonArrayResponse {
+
+    private JsonArrayResponse() {
+    }
+
+    /**
+     * Запись json-массива в ответ
+     * @param objectMapper настроенный ObjectMapper приложения
+     * @param version версия данных
+     * @param webRequest запрос, из которого читается If-None-Match
+     * @param response ответ
+     * @param source источник строк, передающий каждую строку обработчику
+     * @throws IOException при ошибке записи ответа
+     */
+    public static <T> void write(ObjectMapper objectMapper, String version, WebRequest webRequest,
+                          HttpServletResponse response, Consumer<Consumer<T>> source) throws IOException {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        if (webRequest.checkNotModified('"' + version + '"'))
+            return;
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory()
+                .createGenerator(response.getOutputStream(), JsonEncoding.UTF8)) {
+            generator.writeStartArray();
+            try {
+                source.accept(row -> {
+                    try {
+                        writer.writeValue(generator, row);
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.writeEndArray();
+        }
+    }
+}
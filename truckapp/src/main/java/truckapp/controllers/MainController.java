@@ -1,6 +1,6 @@
 package truckapp.controllers;
 
-import truckapp.model.User;
+import truckapp.model.AuthenticatedUser;
 import truckapp.roles.Role;
 import truckapp.services.OrderService;
 import truckapp.services.AuthorizationService;
@@ -38,10 +38,10 @@ public class MainController {
      * @return a {@link java.lang.String} object.
      */
     @GetMapping("/")
-    public String homePage(@AuthenticationPrincipal User user, Model model) {
+    public String homePage(@AuthenticationPrincipal AuthenticatedUser user, Model model) {
         model.addAttribute("user", user);
         if (user != null) {
-            if (user.getRoles().contains(Role.USER))
+            if (user.hasRole(Role.USER))
                 model.addAttribute("userRole", "user");
         }
         return "home";
@@ -51,14 +51,16 @@ public class MainController {
      *Возврат страницы личного кабинета
      *
      * @param httpServletResponse a {@link javax.servlet.http.HttpServletResponse} object.
+     * @param ordersToken токен страницы заказов
      * @param model модель страницы main
      * @return страницу личного кабинета
      */
     @GetMapping("/main")
     public String mainPage(HttpServletResponse httpServletResponse,
-                           @AuthenticationPrincipal User user,
+                           @AuthenticationPrincipal AuthenticatedUser user,
+                           @RequestParam(value = "orders", required = false) String ordersToken,
                            Model model) {
-        return authorizationService.getMainPage(user, model);
+        return authorizationService.getMainPage(user, ordersToken, model);
     }
 
     /**
@@ -67,7 +69,7 @@ public class MainController {
      * @return страницу для смены личного кабинета
      */
     @GetMapping("/changePassword")
-    public String changePassword(@AuthenticationPrincipal User user, Model model) {
+    public String changePassword(@AuthenticationPrincipal AuthenticatedUser user, Model model) {
         model.addAttribute("user", user);
         return "changePage";
     }
@@ -78,12 +80,13 @@ public class MainController {
      * @param oldPassword a {@link java.lang.String} object.
      * @param newPassword a {@link java.lang.String} object.
      * @param model a {@link org.springframework.ui.Model} object.
+     * @param httpServletResponse a {@link javax.servlet.http.HttpServletResponse} object.
      * @return a {@link java.lang.String} object.
      */
     @PostMapping("/changePasswordAction")
     public String changePasswordAction(@ModelAttribute("old_password") String oldPassword,
                                        @ModelAttribute("password") String newPassword,
-                                       Model model) {
-        return authorizationService.changingPassword(oldPassword, newPassword, model);
+                                       Model model, HttpServletResponse httpServletResponse) {
+        return authorizationService.changingPassword(oldPassword, newPassword, model, httpServletResponse);
     }
 }
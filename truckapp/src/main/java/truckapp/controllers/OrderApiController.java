@@ -0,0 +1,143 @@
+package truckapp.controllers;
+
+import truckapp.dto.BulkOrderResult;
+import truckapp.dto.OrderRequest;
+import truckapp.dto.OrderRow;
+import truckapp.model.AuthenticatedUser;
+import truckapp.model.Order;
+import truckapp.roles.Role;
+import truckapp.services.BookingService;
+import truckapp.services.OrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.ui.ExtendedModelMap;
+import org.springframework.ui.Model;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * REST контроллер заказов.
+ * Пользователь работает со своими заказами, администратор - с заказами всех пользователей
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@RestController
+@RequestMapping("/api/v1/orders")
+public class OrderApiController {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${truckapp.bulk.max-orders}")
+    private int maxBulkOrders;
+
+    /**
+     * Выгрузка заказов
+     * @param user авторизированный пользователь
+     * @param all true - заказы всех пользователей, только для администратора
+     * @param webRequest запрос
+     * @param response ответ с json-массивом заказов
+     * @throws IOException при ошибке записи ответа
+     */
+    @GetMapping
+    public void list(@AuthenticationPrincipal AuthenticatedUser user,
+                     @RequestParam(value = "all", defaultValue = "false") boolean all,
+                     WebRequest webRequest, HttpServletResponse response) throws IOException {
+        if (all && !isAdmin(user)) {
+            response.sendError(HttpStatus.FORBIDDEN.value());
+            return;
+        }
+        String customerUsername = all ? null : user.getUsername();
+        JsonArrayResponse.<OrderRow>write(objectMapper, orderService.findVersion(customerUsername), webRequest, response,
+                consumer -> orderService.forEachOrderRow(customerUsername, consumer));
+    }
+
+    /**
+     * Получение заказа. Заказы не изменяются, поэтому ETag - номер заказа
+     * @param id номер заказа
+     * @param user авторизированный пользователь
+     * @return заказ или 404, если заказа нет или он принадлежит другому пользователю
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<OrderRow> get(@PathVariable("id") Long id, @AuthenticationPrincipal AuthenticatedUser user) {
+        OrderRow row = orderService.findOrderRow(id);
+        if (!isAccessible(row, user))
+            return ResponseEntity.notFound().build();
+        return ResponseEntity.ok().eTag(String.valueOf(id)).body(row);
+    }
+
+    /**
+     * Оформление заказа с подбором автомобиля и сотрудников
+     * @param request поля заказа
+     * @param user авторизированный пользователь
+     * @return 201 с оформленным заказом или 400 с текстами ошибок по полям
+     */
+    @PostMapping
+    public ResponseEntity<?> create(@RequestBody OrderRequest request, @AuthenticationPrincipal AuthenticatedUser user) {
+        Order order = request.toOrder();
+        order.setCustomerUsername(user.getUsername());
+        order.setCreationDate(new Date());
+        BindingResult bindingResult = new BeanPropertyBindingResult(order, "orderForm");
+        Model model = new ExtendedModelMap();
+        if (!bookingService.bookOrder(order, request.getTruckDescription(), request.getNumberOfWorkers(),
+                bindingResult, model))
+            return ResponseEntity.badRequest().body(model.asMap());
+        return ResponseEntity.created(URI.create("/api/v1/orders/" + order.getId()))
+                .body(orderService.findOrderRow(order.getId()));
+    }
+
+    /**
+     * Пакетное оформление заказов
+     * @param requests поля заказов, не больше truckapp.bulk.max-orders
+     * @param user авторизированный пользователь
+     * @return результаты в порядке заказов пачки: номер заказа или тексты ошибок по полям
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<List<BulkOrderResult>> createAll(@RequestBody List<OrderRequest> requests,
+                                                           @AuthenticationPrincipal AuthenticatedUser user) {
+        if (requests.size() > maxBulkOrders)
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        return ResponseEntity.ok(bookingService.bookOrders(user.getUsername(), requests));
+    }
+
+    /**
+     * Отмена заказа
+     * @param id номер заказа
+     * @param user авторизированный пользователь
+     * @return 204 или 404, если заказа нет или он принадлежит другому пользователю
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancel(@PathVariable("id") Long id, @AuthenticationPrincipal AuthenticatedUser user) {
+        if (!isAccessible(orderService.findOrderRow(id), user))
+            return ResponseEntity.notFound().build();
+        orderService.delete(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    private static boolean isAccessible(OrderRow row, AuthenticatedUser user) {
+        return row != null && (isAdmin(user) || row.getCustomerUsername().equals(user.getUsername()));
+    }
+
+    private static boolean isAdmin(AuthenticatedUser user) {
+        return user.hasRole(Role.ADMIN);
+    }
+}
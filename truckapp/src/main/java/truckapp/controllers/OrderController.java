@@ -1,16 +1,14 @@
 package truckapp.controllers;
 
-import truckapp.model.Employee;
+import truckapp.model.AuthenticatedUser;
 import truckapp.model.Order;
-import truckapp.model.Truck;
-import truckapp.model.User;
+import truckapp.services.BookingService;
 import truckapp.services.EmployeeService;
 import truckapp.services.OrderService;
 import truckapp.services.TruckService;
 import truckapp.validators.OrderValidator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -39,13 +37,16 @@ public class OrderController {
     @Autowired
     private OrderValidator orderValidator;
 
+    @Autowired
+    private BookingService bookingService;
+
     /**
      * Метод для получения страницы оформления заказа
      * @param model модель страницы makeOrder
      * @return страница с формой заказа
      */
     @GetMapping("/makeOrder")
-    public String makeOrder(@AuthenticationPrincipal User user, Model model) {
+    public String makeOrder(@AuthenticationPrincipal AuthenticatedUser user, Model model) {
         model.addAttribute("user", user);
         model.addAttribute("orderForm", new Order());
         return "makeOrder";
@@ -60,26 +61,18 @@ public class OrderController {
      * @return перенаправление на /main
      */
     @PostMapping("/makeOrderAction")
-    public String makeOrderAction(@ModelAttribute Order orderForm,
+    public String makeOrderAction(@ModelAttribute Order orderForm, BindingResult bindingResult,
                                   @RequestParam("truckDescription") String truckDescription,
                                   @RequestParam("numberOfWorkers") int numberOfWorkers,
-                                  @AuthenticationPrincipal User user,
-                                  BindingResult bindingResult, Model model) {
-        List<Employee> workers = employeeService.findAll();
-        List<Employee> workersBuf = employeeService.setWorkersToOrder(orderForm, workers);
-        List<Truck> trucks = truckService.findAllByDescription(truckDescription);
-        Truck truck = truckService.setTruckToOrder(orderForm, trucks);
-        if (orderService.validateOrderForm(orderForm, workersBuf, numberOfWorkers, truck, bindingResult, model)) {
+                                  @AuthenticationPrincipal AuthenticatedUser user, Model model) {
+        orderForm.setCustomerUsername(user.getUsername());
+        orderForm.setCreationDate(new Date());
+        if (!bookingService.bookOrder(orderForm, truckDescription, numberOfWorkers, bindingResult, model)) {
             orderService.pasteOrderForm(orderForm, numberOfWorkers, model);
             model.addAttribute("user", user);
             model.addAttribute("again", "yes");
             return "makeOrder";
         }
-        orderForm.setCustomerUsername(SecurityContextHolder.getContext().getAuthentication().getName());
-        orderForm.setCreationDate(new Date());
-        orderForm.setTruck(truck);
-        orderForm.setWorkers(workersBuf.subList(0, numberOfWorkers));
-        orderService.save(orderForm);
         return "redirect:/main";
     }
 
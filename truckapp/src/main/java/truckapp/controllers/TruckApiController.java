@@ -0,0 +1,42 @@
+package truckapp.controllers;
+
+import truckapp.dto.TruckRow;
+import truckapp.services.TruckService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * REST контроллер грузовиков
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@RestController
+@RequestMapping("/api/v1/trucks")
+public class TruckApiController {
+
+    @Autowired
+    private TruckService truckService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Выгрузка всех грузовиков
+     * @param webRequest запрос
+     * @param response ответ с json-массивом грузовиков
+     * @throws IOException при ошибке записи ответа
+     */
+    @GetMapping
+    public void list(WebRequest webRequest, HttpServletResponse response) throws IOException {
+        JsonArrayResponse.<TruckRow>write(objectMapper, truckService.findVersion(), webRequest, response,
+                truckService::forEachTruckRow);
+    }
+}
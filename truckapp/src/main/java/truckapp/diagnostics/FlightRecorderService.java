@@ -0,0 +1,113 @@
+package truckapp.diagnostics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Постоянная запись Flight Recorder.
+ * Запись запускается при старте приложения с настройками JDK "default" (накладные расходы около 1%)
+ * и событиями truckapp, хранит на диске последние truckapp.jfr.max-age-minutes минут,
+ * но не больше truckapp.jfr.max-size-mb, и выгружается по запросу администратора для разбора всплесков задержек
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@Service
+public class FlightRecorderService {
+
+    private static final Logger log = LoggerFactory.getLogger(FlightRecorderService.class);
+
+    private static final String SETTINGS = "default";
+
+    @Value("${truckapp.jfr.enabled}")
+    private boolean enabled;
+
+    @Value("${truckapp.jfr.max-age-minutes}")
+    private long maxAgeMinutes;
+
+    @Value("${truckapp.jfr.max-size-mb}")
+    private long maxSizeMegabytes;
+
+    @Value("${truckapp.jfr.slow-query-threshold-ms}")
+    private long slowQueryThresholdMillis;
+
+    private Recording recording;
+
+    /**
+     * Запуск записи, если она включена и JVM поддерживает Flight Recorder
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled)
+            return;
+        if (!FlightRecorder.isAvailable()) {
+            log.warn("Flight Recorder is not available in this JVM, continuous recording is off");
+            return;
+        }
+        try {
+            recording = new Recording(Configuration.getConfiguration(SETTINGS));
+        }
+        catch (IOException | ParseException e) {
+            log.warn("Cannot load Flight Recorder settings '{}', continuous recording is off", SETTINGS, e);
+            return;
+        }
+        recording.setName("truckapp");
+        recording.setToDisk(true);
+        recording.setMaxAge(Duration.ofMinutes(maxAgeMinutes));
+        recording.setMaxSize(maxSizeMegabytes * 1024 * 1024);
+        recording.enable(OrderBookingEvent.class);
+        recording.enable(ResourceAllocationEvent.class);
+        recording.enable(SlowQueryEvent.class).withThreshold(Duration.ofMillis(slowQueryThresholdMillis));
+        recording.start();
+        log.info("Continuous Flight Recorder recording started: max age {} min, max size {} MB, slow query threshold {} ms",
+                maxAgeMinutes, maxSizeMegabytes, slowQueryThresholdMillis);
+    }
+
+    /**
+     * Остановка записи
+     */
+    @PreDestroy
+    public void stop() {
+        if (recording != null)
+            recording.close();
+    }
+
+    /**
+     * @return true, если постоянная запись идёт
+     */
+    public boolean isRecording() {
+        return recording != null;
+    }
+
+    /**
+     * Выгрузка содержимого записи во временный файл. Запись при этом продолжается
+     * @return путь к файлу .jfr, который вызывающий удаляет после использования
+     * @throws IOException при ошибке записи файла
+     */
+    public Path dump() throws IOException {
+        if (recording == null)
+            throw new IllegalStateException("Continuous recording is not running");
+        Path file = Files.createTempFile("truckapp-", ".jfr");
+        try {
+            recording.dump(file);
+        }
+        catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return file;
+    }
+}
@@ -0,0 +1,63 @@
+package truckapp.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Событие Flight Recorder: оформление одного заказа через форму.
+ * Длительность события - всё бронирование, поля разбивают её на ожидание блокировки,
+ * подбор ресурсов, проверку формы и сохранение
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@Name("truckapp.OrderBooking")
+@Label("Order Booking")
+@Category({"Truckapp", "Booking"})
+@Description("Booking of one order from the order form")
+@StackTrace(false)
+public class OrderBookingEvent extends jdk.jfr.Event {
+
+    @Label("Target Date")
+    public String targetDate;
+
+    @Label("Truck Description")
+    public String truckDescription;
+
+    @Label("Requested Workers")
+    public int requestedWorkers;
+
+    @Label("Found Workers")
+    public int foundWorkers;
+
+    @Label("Truck Found")
+    public boolean truckFound;
+
+    @Label("Attempts")
+    @Description("Allocation attempts, more than one after losing a race to another instance")
+    public int attempts;
+
+    @Label("Lock Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    public long lockWait;
+
+    @Label("Allocation")
+    @Timespan(Timespan.NANOSECONDS)
+    public long allocation;
+
+    @Label("Validation")
+    @Timespan(Timespan.NANOSECONDS)
+    public long validation;
+
+    @Label("Persist")
+    @Timespan(Timespan.NANOSECONDS)
+    public long persist;
+
+    @Label("Outcome")
+    @Description("booked, rejected or conflict")
+    public String outcome;
+}
@@ -0,0 +1,52 @@
+package truckapp.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие Flight Recorder: подбор свободных сотрудников или автомобиля по индексу занятости.
+ * Количество кандидатов и занятых показывает, насколько заполнена дата и сколько бит просмотрено при подборе
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@Name("truckapp.ResourceAllocation")
+@Label("Resource Allocation")
+@Category({"Truckapp", "Booking"})
+@Description("Lookup of free employees or a free truck in the availability index")
+@StackTrace(false)
+public class ResourceAllocationEvent extends jdk.jfr.Event {
+
+    /**
+     * подбор сотрудников
+     */
+    public static final String EMPLOYEE = "employee";
+
+    /**
+     * подбор автомобиля
+     */
+    public static final String TRUCK = "truck";
+
+    @Label("Resource")
+    public String resource;
+
+    @Label("Target Date")
+    public String targetDate;
+
+    @Label("Candidates")
+    @Description("Employees, or trucks with the requested description")
+    public int candidates;
+
+    @Label("Free")
+    @Description("Candidates not booked on the date and not reserved for the same batch")
+    public int free;
+
+    @Label("Requested")
+    public int requested;
+
+    @Label("Selected")
+    public int selected;
+}
@@ -0,0 +1,30 @@
+package truckapp.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Событие Flight Recorder: выполнение sql-запроса Hibernate дольше порога.
+ * Порог задаётся настройками записи, в постоянной записи - свойством truckapp.jfr.slow-query-threshold-ms.
+ * В событие попадает форма запроса без литералов, поэтому в запись не попадают данные пользователей
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@Name("truckapp.SlowQuery")
+@Label("Slow Query")
+@Category({"Truckapp", "Database"})
+@Description("JDBC statement executed by Hibernate that took longer than the threshold")
+@Threshold("100 ms")
+public class SlowQueryEvent extends jdk.jfr.Event {
+
+    @Label("SQL")
+    @Description("Statement text with literals replaced by ?")
+    public String sql;
+
+    @Label("Batch")
+    public boolean batch;
+}
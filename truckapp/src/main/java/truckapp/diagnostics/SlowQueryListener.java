@@ -0,0 +1,79 @@
+package truckapp.diagnostics;
+
+import org.hibernate.BaseSessionEventListener;
+
+import java.util.regex.Pattern;
+
+/**
+ * Замер выполнения sql-запросов Hibernate событием {@link SlowQueryEvent}.
+ * Hibernate создаёт слушатель на каждую сессию (свойство hibernate.session.events.auto),
+ * а текст запроса получает {@link SqlTextInspector} при подготовке statement и передаёт через поток,
+ * в котором работает сессия. Форма запроса вычисляется только для событий дольше порога
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+public class SlowQueryListener extends BaseSessionEventListener {
+
+    /**
+     * текст последнего подготовленного в потоке запроса
+     */
+    static final ThreadLocal<String> LAST_SQL = new ThreadLocal<>();
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final int MAX_SQL_LENGTH = 4000;
+
+    private SlowQueryEvent event;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        begin();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        commit(false);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        begin();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        commit(true);
+    }
+
+    private void begin() {
+        event = new SlowQueryEvent();
+        event.begin();
+    }
+
+    private void commit(boolean batch) {
+        SlowQueryEvent current = event;
+        event = null;
+        if (current == null)
+            return;
+        current.end();
+        if (current.shouldCommit()) {
+            current.sql = shape(LAST_SQL.get());
+            current.batch = batch;
+            current.commit();
+        }
+    }
+
+    private static String shape(String sql) {
+        if (sql == null)
+            return null;
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = WHITESPACE.matcher(shape).replaceAll(" ").trim();
+        return shape.length() > MAX_SQL_LENGTH ? shape.substring(0, MAX_SQL_LENGTH) : shape;
+    }
+}
@@ -0,0 +1,19 @@
+package truckapp.diagnostics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Запоминание текста запроса, который готовит Hibernate, для {@link SlowQueryListener}
+ * (свойство hibernate.session_factory.statement_inspector). Текст запроса не изменяется
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+public class SqlTextInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SlowQueryListener.LAST_SQL.set(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,42 @@
+package truckapp.dto;
+
+import java.util.Map;
+
+/**
+ * Результат оформления одного заказа из пачки: номер сохранённого заказа или тексты ошибок по полям
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+public class BulkOrderResult {
+
+    private final Long id;
+
+    private final Map<String, String> errors;
+
+    /**
+     * параметризованный конструктор
+     * @param id номер сохранённого заказа или null
+     * @param errors тексты ошибок по полям, пустые для сохранённого заказа
+     */
+    public BulkOrderResult(Long id, Map<String, String> errors) {
+        this.id = id;
+        this.errors = errors;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * проверка успешности оформления
+     * @return true, если заказ сохранён
+     */
+    public boolean isBooked() {
+        return id != null;
+    }
+}
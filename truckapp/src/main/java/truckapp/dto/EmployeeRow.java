@@ -0,0 +1,41 @@
+package truckapp.dto;
+
+/**
+ * Строка таблицы сотрудников с количеством назначенных заказов,
+ * посчитанным агрегатным запросом
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+public class EmployeeRow {
+
+    private final Long id;
+
+    private final String name;
+
+    private final long orderCount;
+
+    /**
+     * параметризованный конструктор, используется в JPQL запросах
+     * @param id номер сотрудника
+     * @param name имя и фамилия
+     * @param orderCount количество заказов сотрудника
+     */
+    public EmployeeRow(Long id, String name, long orderCount) {
+        this.id = id;
+        this.name = name;
+        this.orderCount = orderCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+}
@@ -0,0 +1,49 @@
+package truckapp.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница строк с токеном следующей страницы
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+public class KeysetPage<T> {
+
+    private final List<T> items;
+
+    private final String nextToken;
+
+    /**
+     * параметризованный конструктор
+     * @param items строки страницы
+     * @param nextToken токен следующей страницы или null, если страница последняя
+     */
+    public KeysetPage(List<T> items, String nextToken) {
+        this.items = items;
+        this.nextToken = nextToken;
+    }
+
+    /**
+     * Создание страницы из выборки, запрошенной с запасом в одну строку
+     * @param rows выборка не длиннее pageSize + 1
+     * @param pageSize размер страницы
+     * @param tokenOf функция построения токена по последней строке страницы
+     * @return страница
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int pageSize, Function<T, PageToken> tokenOf) {
+        if (rows.size() <= pageSize)
+            return new KeysetPage<>(rows, null);
+        List<T> items = rows.subList(0, pageSize);
+        return new KeysetPage<>(items, tokenOf.apply(items.get(pageSize - 1)).encode());
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextToken() {
+        return nextToken;
+    }
+}
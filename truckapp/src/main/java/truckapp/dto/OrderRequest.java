@@ -0,0 +1,121 @@
+package truckapp.dto;
+
+import truckapp.model.Order;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Тело запроса на оформление заказа через api
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+public class OrderRequest {
+
+    private String addressFrom;
+
+    private String addressTo;
+
+    private LocalDate targetDate;
+
+    private LocalTime targetTime;
+
+    private Integer distanceM;
+
+    private Integer durationS;
+
+    private int price;
+
+    private String truckDescription;
+
+    private int numberOfWorkers;
+
+    /**
+     * Создание объекта заказа по полям запроса
+     * @return новый заказ без заказчика, автомобиля и сотрудников
+     */
+    public Order toOrder() {
+        Order order = new Order();
+        order.setAddressFrom(addressFrom);
+        order.setAddressTo(addressTo);
+        order.setTargetDate(targetDate);
+        order.setTargetTime(targetTime);
+        order.setDistanceM(distanceM);
+        order.setDurationS(durationS);
+        order.setPrice(price);
+        return order;
+    }
+
+    public String getAddressFrom() {
+        return addressFrom;
+    }
+
+    public void setAddressFrom(String addressFrom) {
+        this.addressFrom = addressFrom;
+    }
+
+    public String getAddressTo() {
+        return addressTo;
+    }
+
+    public void setAddressTo(String addressTo) {
+        this.addressTo = addressTo;
+    }
+
+    public LocalDate getTargetDate() {
+        return targetDate;
+    }
+
+    public void setTargetDate(LocalDate targetDate) {
+        this.targetDate = targetDate;
+    }
+
+    public LocalTime getTargetTime() {
+        return targetTime;
+    }
+
+    public void setTargetTime(LocalTime targetTime) {
+        this.targetTime = targetTime;
+    }
+
+    public Integer getDistanceM() {
+        return distanceM;
+    }
+
+    public void setDistanceM(Integer distanceM) {
+        this.distanceM = distanceM;
+    }
+
+    public Integer getDurationS() {
+        return durationS;
+    }
+
+    public void setDurationS(Integer durationS) {
+        this.durationS = durationS;
+    }
+
+    public int getPrice() {
+        return price;
+    }
+
+    public void setPrice(int price) {
+        this.price = price;
+    }
+
+    public String getTruckDescription() {
+        return truckDescription;
+    }
+
+    public void setTruckDescription(String truckDescription) {
+        this.truckDescription = truckDescription;
+    }
+
+    public int getNumberOfWorkers() {
+        return numberOfWorkers;
+    }
+
+    public void setNumberOfWorkers(int numberOfWorkers) {
+        this.numberOfWorkers = numberOfWorkers;
+    }
+}
@@ -0,0 +1,122 @@
+package truckapp.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Строка таблицы заказов для отображения на страницах.
+ * Заполняется одним запросом, без обращения к ленивым связям заказа
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+public class OrderRow {
+
+    private final Long id;
+
+    private final String customerUsername;
+
+    private final String addressFrom;
+
+    private final String addressTo;
+
+    private final LocalDate targetDate;
+
+    private final LocalTime targetTime;
+
+    private final Date creationDate;
+
+    private final String carNumber;
+
+    private final String truckDescription;
+
+    private final int price;
+
+    private final List<String> workers = new ArrayList<>();
+
+    /**
+     * параметризованный конструктор, используется в JPQL запросах
+     * @param id номер заказа
+     * @param customerUsername никнейм заказчика
+     * @param addressFrom адрес пункта отправки
+     * @param addressTo адрес пункта назначения
+     * @param targetDate дата выполнения заказа
+     * @param targetTime время выполнения заказа
+     * @param creationDate дата оформления заказа
+     * @param carNumber номер назначенного автомобиля
+     * @param truckDescription характеристика назначенного автомобиля
+     * @param price примерная стоимость выполнения заказа
+     */
+    public OrderRow(Long id,
+                    String customerUsername,
+                    String addressFrom,
+                    String addressTo,
+                    LocalDate targetDate,
+                    LocalTime targetTime,
+                    Date creationDate,
+                    String carNumber,
+                    String truckDescription,
+                    int price) {
+        this.id = id;
+        this.customerUsername = customerUsername;
+        this.addressFrom = addressFrom;
+        this.addressTo = addressTo;
+        this.targetDate = targetDate;
+        this.targetTime = targetTime;
+        this.creationDate = creationDate;
+        this.carNumber = carNumber;
+        this.truckDescription = truckDescription;
+        this.price = price;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getCustomerUsername() {
+        return customerUsername;
+    }
+
+    public String getAddressFrom() {
+        return addressFrom;
+    }
+
+    public String getAddressTo() {
+        return addressTo;
+    }
+
+    public LocalDate getTargetDate() {
+        return targetDate;
+    }
+
+    public LocalTime getTargetTime() {
+        return targetTime;
+    }
+
+    public Date getCreationDate() {
+        return creationDate;
+    }
+
+    public String getCarNumber() {
+        return carNumber;
+    }
+
+    public String getTruckDescription() {
+        return truckDescription;
+    }
+
+    public int getPrice() {
+        return price;
+    }
+
+    /**
+     * получение имён и фамилий назначенных сотрудников
+     * @return список имён сотрудников
+     */
+    public List<String> getWorkers() {
+        return workers;
+    }
+}
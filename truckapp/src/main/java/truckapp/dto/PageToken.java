@@ -0,0 +1,69 @@
+package truckapp.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Токен страницы для постраничного вывода по ключу (keyset pagination).
+ * Хранит значения ключа сортировки и id последней строки предыдущей страницы,
+ * следующая страница начинается строго после них
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+public final class PageToken {
+
+    /**
+     * Токен первой страницы
+     */
+    public static final PageToken FIRST = new PageToken("", 0L);
+
+    private final String key;
+
+    private final Long id;
+
+    /**
+     * параметризованный конструктор
+     * @param key значение ключа сортировки последней строки
+     * @param id id последней строки
+     */
+    public PageToken(String key, Long id) {
+        this.key = key == null ? "" : key;
+        this.id = id;
+    }
+
+    /**
+     * Разбор токена из параметра запроса
+     * @param token строка токена, может быть пустой
+     * @return токен страницы, для пустой или повреждённой строки - токен первой страницы
+     */
+    public static PageToken parse(String token) {
+        if (token == null || token.isEmpty())
+            return FIRST;
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            return new PageToken(decoded.substring(separator + 1), Long.valueOf(decoded.substring(0, separator)));
+        }
+        catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return FIRST;
+        }
+    }
+
+    /**
+     * Кодирование токена для передачи в параметре запроса
+     * @return строка токена
+     */
+    public String encode() {
+        String raw = id + ":" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
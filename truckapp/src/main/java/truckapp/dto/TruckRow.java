@@ -0,0 +1,40 @@
+package truckapp.dto;
+
+/**
+ * Строка списка грузовиков для выдачи через api
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+public class TruckRow {
+
+    private final Long id;
+
+    private final String description;
+
+    private final String carNumber;
+
+    /**
+     * параметризованный конструктор, используется в JPQL запросах
+     * @param id номер грузовика
+     * @param description характеристика грузовика
+     * @param carNumber автомобильный номер
+     */
+    public TruckRow(Long id, String description, String carNumber) {
+        this.id = id;
+        this.description = description;
+        this.carNumber = carNumber;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getCarNumber() {
+        return carNumber;
+    }
+}
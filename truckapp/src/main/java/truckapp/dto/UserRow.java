@@ -0,0 +1,78 @@
+package truckapp.dto;
+
+import truckapp.model.User;
+import truckapp.roles.Role;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Неизменяемый снимок пользователя для кэша пользователей.
+ * Хеша пароля в снимке нет: пароль проверяется и меняется только по сущности, прочитанной из бд
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+public final class UserRow {
+
+    private final Long id;
+
+    private final String username;
+
+    private final String email;
+
+    private final String phoneNumber;
+
+    private final boolean activated;
+
+    private final Set<Role> roles;
+
+    private UserRow(Long id, String username, String email, String phoneNumber, boolean activated, Set<Role> roles) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.phoneNumber = phoneNumber;
+        this.activated = activated;
+        this.roles = roles;
+    }
+
+    /**
+     * Создание снимка пользователя
+     * @param user объект пользователя из бд
+     * @return снимок или null, если пользователя нет
+     */
+    public static UserRow of(User user) {
+        if (user == null)
+            return null;
+        Set<Role> roles = EnumSet.noneOf(Role.class);
+        if (user.getRoles() != null)
+            roles.addAll(user.getRoles());
+        return new UserRow(user.getId(), user.getUsername(), user.getEmail(), user.getPhoneNumber(),
+                user.isActivated(), Collections.unmodifiableSet(roles));
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public boolean isActivated() {
+        return activated;
+    }
+
+    public Set<Role> getRoles() {
+        return roles;
+    }
+}
@@ -0,0 +1,109 @@
+package truckapp.metrics;
+
+import org.apache.catalina.connector.Connector;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Фильтр, замеряющий все http-запросы приложения и отдающий метрики на отдельном порту.
+ * Запрос помечается шаблоном url обработчика (например /api/v1/orders/{id}), а не фактическим путём,
+ * поэтому количество рядов метрики ограничено количеством обработчиков.
+ * Запросы, пришедшие на порт управления, не доходят до Spring Security и контроллеров:
+ * на нём доступен только путь с метриками
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+public class HttpMetricsFilter extends OncePerRequestFilter {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MetricsRegistry metricsRegistry;
+
+    private final Connector managementConnector;
+
+    private final String metricsPath;
+
+    /**
+     * параметризованный конструктор
+     * @param metricsRegistry реестр метрик
+     * @param managementConnector коннектор порта управления
+     * @param metricsPath путь, по которому на порту управления отдаются метрики
+     */
+    public HttpMetricsFilter(MetricsRegistry metricsRegistry, Connector managementConnector, String metricsPath) {
+        this.metricsRegistry = metricsRegistry;
+        this.managementConnector = managementConnector;
+        this.metricsPath = metricsPath;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (request.getLocalPort() == managementConnector.getLocalPort()) {
+            serveManagement(request, response);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        }
+        finally {
+            int status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+            metricsRegistry.timer("http_server_requests", "HTTP requests by handler url pattern",
+                    "method", method(request),
+                    "uri", uri(request, status),
+                    "status", String.valueOf(status),
+                    "outcome", outcome(status))
+                    .record(System.nanoTime() - start);
+        }
+    }
+
+    private void serveManagement(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!HttpMethod.GET.matches(request.getMethod()) || !metricsPath.equals(request.getRequestURI())) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        response.setContentType(CONTENT_TYPE);
+        Writer writer = response.getWriter();
+        metricsRegistry.scrape(writer);
+        writer.flush();
+    }
+
+    private static String method(HttpServletRequest request) {
+        HttpMethod method = HttpMethod.resolve(request.getMethod());
+        return method == null ? "OTHER" : method.name();
+    }
+
+    private static String uri(HttpServletRequest request, int status) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern != null)
+            return pattern.toString();
+        if (status == HttpServletResponse.SC_NOT_FOUND)
+            return "NOT_FOUND";
+        if (status >= 300 && status < 400)
+            return "REDIRECTION";
+        return "UNKNOWN";
+    }
+
+    private static String outcome(int status) {
+        if (status < 200)
+            return "INFORMATIONAL";
+        if (status < 300)
+            return "SUCCESS";
+        if (status < 400)
+            return "REDIRECTION";
+        if (status < 500)
+            return "CLIENT_ERROR";
+        return "SERVER_ERROR";
+    }
+}
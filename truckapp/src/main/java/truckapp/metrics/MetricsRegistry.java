@@ -0,0 +1,255 @@
+package truckapp.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+
+/**
+ * Реестр метрик приложения с выводом в текстовом формате Prometheus.
+ * Метрика задаётся именем и парами тегов; значения тегов должны браться из ограниченного набора
+ * (шаблон url, код ответа, имя класса исключения), а не из данных пользователей,
+ * иначе количество временных рядов растёт без ограничений.
+ * Таймеры хранятся как гистограммы с фиксированными границами, счётчики - как {@link LongAdder},
+ * поэтому запись значения не блокирует потоки
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@Component
+public class MetricsRegistry {
+
+    /**
+     * границы корзин таймеров, с
+     */
+    private static final double[] BUCKETS = {0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30};
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final ConcurrentMap<String, Family<?>> families = new ConcurrentHashMap<>();
+
+    /**
+     * Таймер с указанными тегами
+     * @param name имя метрики без суффикса _seconds
+     * @param help описание метрики
+     * @param tags теги, попарно имя и значение
+     * @return таймер
+     */
+    public Timer timer(String name, String help, String... tags) {
+        return this.<Timer>family(name + "_seconds", help, Type.HISTOGRAM).get(key -> new Timer(), tags);
+    }
+
+    /**
+     * Счётчик с указанными тегами
+     * @param name имя метрики без суффикса _total
+     * @param help описание метрики
+     * @param tags теги, попарно имя и значение
+     * @return счётчик
+     */
+    public Counter counter(String name, String help, String... tags) {
+        return this.<Counter>family(name + "_total", help, Type.COUNTER).get(key -> new Counter(), tags);
+    }
+
+    /**
+     * Счётчик, значение которого читается при выводе метрик, например из статистики Hibernate
+     * @param name имя метрики без суффикса _total
+     * @param help описание метрики
+     * @param value источник значения
+     * @param tags теги, попарно имя и значение
+     */
+    public void functionCounter(String name, String help, DoubleSupplier value, String... tags) {
+        this.<Gauge>family(name + "_total", help, Type.COUNTER).get(key -> new Gauge(value), tags);
+    }
+
+    /**
+     * Мгновенное значение, читаемое при выводе метрик
+     * @param name имя метрики
+     * @param help описание метрики
+     * @param value источник значения
+     * @param tags теги, попарно имя и значение
+     */
+    public void gauge(String name, String help, DoubleSupplier value, String... tags) {
+        this.<Gauge>family(name, help, Type.GAUGE).get(key -> new Gauge(value), tags);
+    }
+
+    /**
+     * Вывод всех метрик в текстовом формате Prometheus 0.0.4
+     * @param writer поток вывода
+     * @throws IOException при ошибке записи
+     */
+    public void scrape(Writer writer) throws IOException {
+        for (Family<?> family : new TreeMap<>(families).values())
+            family.write(writer);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <M extends Meter> Family<M> family(String name, String help, Type type) {
+        Family<?> family = families.computeIfAbsent(name, key -> new Family<>(key, help, type));
+        if (family.type != type)
+            throw new IllegalArgumentException("Metric " + name + " is already registered as " + family.type);
+        return (Family<M>) family;
+    }
+
+    private enum Type {
+        COUNTER("counter"), GAUGE("gauge"), HISTOGRAM("histogram");
+
+        private final String text;
+
+        Type(String text) {
+            this.text = text;
+        }
+    }
+
+    private interface Meter {
+
+        void write(Writer writer, String name, String labels) throws IOException;
+    }
+
+    /**
+     * Временные ряды одной метрики с разными значениями тегов
+     */
+    private static final class Family<M extends Meter> {
+
+        private final String name;
+
+        private final String help;
+
+        private final Type type;
+
+        private final ConcurrentMap<String, M> series = new ConcurrentHashMap<>();
+
+        private Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+
+        private M get(Function<String, M> factory, String... tags) {
+            return series.computeIfAbsent(labels(tags), factory);
+        }
+
+        private void write(Writer writer) throws IOException {
+            writer.write("# HELP " + name + ' ' + help + '\n');
+            writer.write("# TYPE " + name + ' ' + type.text + '\n');
+            for (Map.Entry<String, M> entry : new TreeMap<>(series).entrySet())
+                entry.getValue().write(writer, name, entry.getKey());
+        }
+
+        private static String labels(String... tags) {
+            if (tags.length % 2 != 0)
+                throw new IllegalArgumentException("Tags must be name and value pairs: " + Arrays.toString(tags));
+            Map<String, String> sorted = new TreeMap<>();
+            for (int i = 0; i < tags.length; i += 2)
+                sorted.put(tags[i], tags[i + 1]);
+            StringBuilder builder = new StringBuilder();
+            for (Map.Entry<String, String> tag : sorted.entrySet()) {
+                if (builder.length() > 0)
+                    builder.append(',');
+                builder.append(tag.getKey()).append("=\"").append(escape(tag.getValue())).append('"');
+            }
+            return builder.toString();
+        }
+
+        private static String escape(String value) {
+            return String.valueOf(value).replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        }
+    }
+
+    /**
+     * Таймер: количество, сумма и распределение длительностей по корзинам
+     */
+    public static final class Timer implements Meter {
+
+        private final LongAdder[] buckets = new LongAdder[BUCKETS.length];
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder sumNanos = new LongAdder();
+
+        private Timer() {
+            for (int i = 0; i < buckets.length; i++)
+                buckets[i] = new LongAdder();
+        }
+
+        /**
+         * Запись длительности
+         * @param nanos длительность, нс
+         */
+        public void record(long nanos) {
+            double seconds = nanos / NANOS_PER_SECOND;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                if (seconds <= BUCKETS[i]) {
+                    buckets[i].increment();
+                    break;
+                }
+            }
+            count.increment();
+            sumNanos.add(nanos);
+        }
+
+        @Override
+        public void write(Writer writer, String name, String labels) throws IOException {
+            String prefix = labels.isEmpty() ? "" : labels + ',';
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                cumulative += buckets[i].sum();
+                writer.write(name + "_bucket{" + prefix + "le=\"" + BUCKETS[i] + "\"} " + cumulative + '\n');
+            }
+            long total = count.sum();
+            writer.write(name + "_bucket{" + prefix + "le=\"+Inf\"} " + Math.max(total, cumulative) + '\n');
+            writer.write(name + "_sum" + braces(labels) + ' ' + sumNanos.sum() / NANOS_PER_SECOND + '\n');
+            writer.write(name + "_count" + braces(labels) + ' ' + total + '\n');
+        }
+    }
+
+    /**
+     * Счётчик событий
+     */
+    public static final class Counter implements Meter {
+
+        private final LongAdder value = new LongAdder();
+
+        private Counter() {
+        }
+
+        /**
+         * Увеличение счётчика на 1
+         */
+        public void increment() {
+            value.increment();
+        }
+
+        @Override
+        public void write(Writer writer, String name, String labels) throws IOException {
+            writer.write(name + braces(labels) + ' ' + value.sum() + '\n');
+        }
+    }
+
+    private static final class Gauge implements Meter {
+
+        private final DoubleSupplier value;
+
+        private Gauge(DoubleSupplier value) {
+            this.value = value;
+        }
+
+        @Override
+        public void write(Writer writer, String name, String labels) throws IOException {
+            double current = value.getAsDouble();
+            writer.write(name + braces(labels) + ' ' + (Double.isNaN(current) ? "NaN" : String.valueOf(current)) + '\n');
+        }
+    }
+
+    private static String braces(String labels) {
+        return labels.isEmpty() ? "" : '{' + labels + '}';
+    }
+}
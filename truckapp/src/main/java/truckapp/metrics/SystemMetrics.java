@@ -0,0 +1,206 @@
+package truckapp.metrics;
+
+import com.google.common.cache.Cache;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+import truckapp.configuration.GuavaRegionFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.RuntimeMXBean;
+import java.lang.management.ThreadMXBean;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Метрики JVM, пула соединений HikariCP, статистики Hibernate и регионов кэша второго уровня.
+ * Значения читаются из MXBean-ов и статистики при каждом выводе метрик,
+ * а время получения, использования и создания соединений пул сообщает сам через {@link IMetricsTracker}
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@Component
+public class SystemMetrics {
+
+    private static final double MILLIS_PER_SECOND = TimeUnit.SECONDS.toMillis(1);
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Регистрация метрик
+     * @throws SQLException если источник данных не отдаёт пул HikariCP
+     */
+    @PostConstruct
+    public void init() throws SQLException {
+        bindJvm();
+        if (dataSource.isWrapperFor(HikariDataSource.class))
+            bindHikari(dataSource.unwrap(HikariDataSource.class));
+        bindHibernate(entityManagerFactory.unwrap(SessionFactory.class).getStatistics());
+        RegionFactory regionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getCache().getRegionFactory();
+        if (regionFactory instanceof GuavaRegionFactory)
+            bindCacheRegions(((GuavaRegionFactory) regionFactory).getRegions());
+    }
+
+    private void bindJvm() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            String area = pool.getType().name().toLowerCase();
+            metricsRegistry.gauge("jvm_memory_used_bytes", "Used memory by pool",
+                    () -> usage(pool).getUsed(), "area", area, "id", pool.getName());
+            metricsRegistry.gauge("jvm_memory_committed_bytes", "Committed memory by pool",
+                    () -> usage(pool).getCommitted(), "area", area, "id", pool.getName());
+            metricsRegistry.gauge("jvm_memory_max_bytes", "Maximum memory by pool, -1 if undefined",
+                    () -> usage(pool).getMax(), "area", area, "id", pool.getName());
+        }
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            metricsRegistry.functionCounter("jvm_gc_collections", "Garbage collections",
+                    gc::getCollectionCount, "gc", gc.getName());
+            metricsRegistry.functionCounter("jvm_gc_collection_seconds", "Time spent in garbage collection",
+                    () -> gc.getCollectionTime() / MILLIS_PER_SECOND, "gc", gc.getName());
+        }
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        metricsRegistry.gauge("jvm_threads_live", "Live threads", threads::getThreadCount);
+        metricsRegistry.gauge("jvm_threads_daemon", "Live daemon threads", threads::getDaemonThreadCount);
+        metricsRegistry.gauge("jvm_threads_peak", "Peak live threads", threads::getPeakThreadCount);
+        ClassLoadingMXBean classes = ManagementFactory.getClassLoadingMXBean();
+        metricsRegistry.gauge("jvm_classes_loaded", "Loaded classes", classes::getLoadedClassCount);
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        metricsRegistry.gauge("system_cpu_count", "Available processors", os::getAvailableProcessors);
+        metricsRegistry.gauge("system_load_average_1m", "System load average for the last minute", os::getSystemLoadAverage);
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            com.sun.management.OperatingSystemMXBean sunOs = (com.sun.management.OperatingSystemMXBean) os;
+            metricsRegistry.gauge("process_cpu_usage", "Recent CPU usage of the process, 0..1", sunOs::getProcessCpuLoad);
+        }
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        metricsRegistry.gauge("process_uptime_seconds", "Process uptime", () -> runtime.getUptime() / MILLIS_PER_SECOND);
+    }
+
+    private void bindHikari(HikariDataSource hikari) {
+        hikari.setMetricsTrackerFactory((poolName, poolStats) -> {
+            bindPoolStats(poolName, poolStats);
+            return new PoolTracker(poolName);
+        });
+    }
+
+    private void bindPoolStats(String pool, PoolStats stats) {
+        metricsRegistry.gauge("hikaricp_connections_active", "Connections in use", stats::getActiveConnections, "pool", pool);
+        metricsRegistry.gauge("hikaricp_connections_idle", "Idle connections", stats::getIdleConnections, "pool", pool);
+        metricsRegistry.gauge("hikaricp_connections", "Open connections", stats::getTotalConnections, "pool", pool);
+        metricsRegistry.gauge("hikaricp_connections_pending", "Threads waiting for a connection",
+                stats::getPendingThreads, "pool", pool);
+        metricsRegistry.gauge("hikaricp_connections_max", "Maximum pool size", stats::getMaxConnections, "pool", pool);
+    }
+
+    private void bindHibernate(Statistics statistics) {
+        hibernateCounter("hibernate_sessions_open", "Sessions opened", statistics, Statistics::getSessionOpenCount);
+        hibernateCounter("hibernate_transactions", "Transactions completed", statistics, Statistics::getTransactionCount);
+        hibernateCounter("hibernate_flushes", "Session flushes", statistics, Statistics::getFlushCount);
+        hibernateCounter("hibernate_statements_prepared", "JDBC statements prepared", statistics,
+                Statistics::getPrepareStatementCount);
+        hibernateCounter("hibernate_query_executions", "HQL and native queries executed", statistics,
+                Statistics::getQueryExecutionCount);
+        hibernateCounter("hibernate_entity_loads", "Entities loaded", statistics, Statistics::getEntityLoadCount);
+        hibernateCounter("hibernate_entity_fetches", "Entities fetched lazily", statistics, Statistics::getEntityFetchCount);
+        hibernateCounter("hibernate_entity_inserts", "Entities inserted", statistics, Statistics::getEntityInsertCount);
+        hibernateCounter("hibernate_entity_updates", "Entities updated", statistics, Statistics::getEntityUpdateCount);
+        hibernateCounter("hibernate_entity_deletes", "Entities deleted", statistics, Statistics::getEntityDeleteCount);
+        hibernateCounter("hibernate_collection_fetches", "Collections fetched lazily", statistics,
+                Statistics::getCollectionFetchCount);
+        hibernateCounter("hibernate_optimistic_failures", "Optimistic lock failures", statistics,
+                Statistics::getOptimisticFailureCount);
+        metricsRegistry.functionCounter("hibernate_second_level_cache_requests", "Second-level cache lookups",
+                statistics::getSecondLevelCacheHitCount, "result", "hit");
+        metricsRegistry.functionCounter("hibernate_second_level_cache_requests", "Second-level cache lookups",
+                statistics::getSecondLevelCacheMissCount, "result", "miss");
+        metricsRegistry.gauge("hibernate_query_execution_max_seconds", "Slowest query since startup",
+                () -> statistics.getQueryExecutionMaxTime() / MILLIS_PER_SECOND);
+    }
+
+    private void bindCacheRegions(Map<String, Cache<Object, Object>> regions) {
+        regions.forEach((region, cache) -> {
+            metricsRegistry.gauge("hibernate_cache_region_entries", "Entries in a second-level cache region",
+                    cache::size, "region", region);
+            metricsRegistry.functionCounter("hibernate_cache_region_requests", "Second-level cache region lookups",
+                    () -> cache.stats().hitCount(), "region", region, "result", "hit");
+            metricsRegistry.functionCounter("hibernate_cache_region_requests", "Second-level cache region lookups",
+                    () -> cache.stats().missCount(), "region", region, "result", "miss");
+            metricsRegistry.functionCounter("hibernate_cache_region_evictions", "Entries evicted by region size",
+                    () -> cache.stats().evictionCount(), "region", region);
+        });
+    }
+
+    private void hibernateCounter(String name, String help, Statistics statistics, ToLongFunction<Statistics> value) {
+        metricsRegistry.functionCounter(name, help, () -> value.applyAsLong(statistics));
+    }
+
+    private static MemoryUsage usage(MemoryPoolMXBean pool) {
+        MemoryUsage usage = pool.getUsage();
+        return usage == null ? new MemoryUsage(-1, 0, 0, -1) : usage;
+    }
+
+    /**
+     * Замеры соединений одного пула
+     */
+    private final class PoolTracker implements IMetricsTracker {
+
+        private final MetricsRegistry.Timer acquire;
+
+        private final MetricsRegistry.Timer usage;
+
+        private final MetricsRegistry.Timer creation;
+
+        private final MetricsRegistry.Counter timeouts;
+
+        private PoolTracker(String pool) {
+            acquire = metricsRegistry.timer("hikaricp_connections_acquire", "Time to get a connection from the pool",
+                    "pool", pool);
+            usage = metricsRegistry.timer("hikaricp_connections_usage", "Time a connection is held", "pool", pool);
+            creation = metricsRegistry.timer("hikaricp_connections_creation", "Time to open a connection", "pool", pool);
+            timeouts = metricsRegistry.counter("hikaricp_connections_timeout", "Connection requests that timed out",
+                    "pool", pool);
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquire.record(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usage.record(TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis));
+        }
+
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            creation.record(TimeUnit.MILLISECONDS.toNanos(connectionCreatedMillis));
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package truckapp.metrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Замер длительности вызова метода бина таймером {@link MetricsRegistry}.
+ * Таймер получает тег exception с именем класса выброшенного исключения или none
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Timed {
+
+    /**
+     * @return имя метрики без суффикса _seconds
+     */
+    String value();
+
+    /**
+     * @return описание метрики
+     */
+    String help();
+}
@@ -0,0 +1,51 @@
+package truckapp.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Аспект, замеряющий методы с аннотацией {@link Timed}.
+ * Аспект выполняется раньше транзакционного прокси, поэтому в замер входит фиксация транзакции.
+ * Вызовы внутри одного бина проходят мимо прокси и не замеряются
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TimedAspect {
+
+    private static final String NONE = "none";
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    /**
+     * Замер вызова
+     * @param joinPoint вызов метода
+     * @param timed параметры таймера
+     * @return результат метода
+     * @throws Throwable исключение метода
+     */
+    @Around("execution(* *(..)) && @annotation(timed)")
+    public Object time(ProceedingJoinPoint joinPoint, Timed timed) throws Throwable {
+        long start = System.nanoTime();
+        String exception = NONE;
+        try {
+            return joinPoint.proceed();
+        }
+        catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        }
+        finally {
+            metricsRegistry.timer(timed.value(), timed.help(), "exception", exception).record(System.nanoTime() - start);
+        }
+    }
+}
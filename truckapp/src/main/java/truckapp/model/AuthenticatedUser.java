@@ -0,0 +1,183 @@
+package truckapp.model;
+
+import truckapp.dto.UserRow;
+import truckapp.roles.Role;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Пользователь в контексте безопасности вместо сущности {@link User}.
+ * Хранит только id, никнейм, роли в виде битовой маски и признак активации,
+ * поэтому не тянет за собой прокси Hibernate и не меняется после входа.
+ * Хеш пароля нужен только для проверки при входе и стирается сразу после неё
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+public final class AuthenticatedUser implements UserDetails, CredentialsContainer {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Role[] ROLES = Role.values();
+
+    private final long id;
+
+    private final String username;
+
+    private final int roles;
+
+    private final boolean activated;
+
+    private String password;
+
+    private AuthenticatedUser(long id, String username, int roles, boolean activated, String password) {
+        this.id = id;
+        this.username = username;
+        this.roles = roles;
+        this.activated = activated;
+        this.password = password;
+    }
+
+    /**
+     * Создание пользователя для контекста безопасности без хеша пароля
+     * @param user объект пользователя из бд
+     * @return пользователь для контекста безопасности
+     */
+    public static AuthenticatedUser of(User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), mask(user.getRoles()), user.isActivated(), null);
+    }
+
+    /**
+     * Создание пользователя для контекста безопасности по снимку из кэша пользователей
+     * @param user снимок пользователя
+     * @return пользователь для контекста безопасности
+     */
+    public static AuthenticatedUser of(UserRow user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), mask(user.getRoles()), user.isActivated(), null);
+    }
+
+    /**
+     * Создание пользователя для проверки пароля при входе
+     * @param user объект пользователя из бд
+     * @return пользователь для контекста безопасности с хешем пароля
+     */
+    public static AuthenticatedUser withPassword(User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), mask(user.getRoles()), user.isActivated(),
+                user.getPassword());
+    }
+
+    /**
+     * получение id пользователя
+     * @return id пользователя
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * получение никнейма
+     * @return никнейм пользователя
+     */
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * получение признака активации
+     * @return true, если учётная запись активирована
+     */
+    public boolean isActivated() {
+        return activated;
+    }
+
+    /**
+     * проверка роли
+     * @param role роль
+     * @return true, если у пользователя есть роль
+     */
+    public boolean hasRole(Role role) {
+        return (roles & bit(role)) != 0;
+    }
+
+    /**
+     * получение ролей
+     * @return набор ролей
+     */
+    public Set<Role> getRoles() {
+        Set<Role> result = EnumSet.noneOf(Role.class);
+        for (Role role : ROLES) {
+            if (hasRole(role))
+                result.add(role);
+        }
+        return result;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return getRoles();
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public void eraseCredentials() {
+        password = null;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof AuthenticatedUser && ((AuthenticatedUser) o).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+
+    private static int mask(Set<Role> roles) {
+        int mask = 0;
+        if (roles != null) {
+            for (Role role : roles)
+                mask |= bit(role);
+        }
+        return mask;
+    }
+
+    private static int bit(Role role) {
+        return 1 << role.ordinal();
+    }
+}
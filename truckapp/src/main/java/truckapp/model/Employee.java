@@ -1,5 +1,8 @@
 package truckapp.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.util.List;
 
@@ -10,7 +13,10 @@ import java.util.List;
  * @version 0.1
  */
 @Entity
-@Table(schema = "public", name = "employee8")
+@Table(schema = "public", name = "employee8",
+        indexes = @Index(name = "employee8_name_id_idx", columnList = "name, id"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "employee")
 public class Employee {
 
     @Id
@@ -0,0 +1,136 @@
+package truckapp.model;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Модель занятости сотрудника на дату выполнения заказа.
+ * Первичный ключ (employee_id, target_date) не позволяет назначить
+ * одного сотрудника на два заказа в один день, в том числе из разных экземпляров приложения.
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@Entity
+@Table(schema = "public", name = "employee_booking8",
+        indexes = @Index(name = "employee_booking8_order_id_idx", columnList = "order_id"))
+@IdClass(EmployeeBooking.Key.class)
+public class EmployeeBooking implements Persistable<EmployeeBooking.Key> {
+
+    @Id
+    @Column(name = "employee_id")
+    private Long employeeId;
+
+    @Id
+    @Column(name = "target_date")
+    private LocalDate targetDate;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    /**
+     * пустой конструктор
+     */
+    public EmployeeBooking() {
+    }
+
+    /**
+     * параметризованный конструктор
+     * @param employeeId id сотрудника
+     * @param targetDate дата выполнения заказа
+     * @param orderId id заказа
+     */
+    public EmployeeBooking(Long employeeId, LocalDate targetDate, Long orderId) {
+        this.employeeId = employeeId;
+        this.targetDate = targetDate;
+        this.orderId = orderId;
+    }
+
+    /**
+     * получение ключа занятости
+     * @return пара (id сотрудника, дата выполнения заказа)
+     */
+    @Override
+    public Key getId() {
+        return new Key(employeeId, targetDate);
+    }
+
+    /**
+     * Занятость всегда вставляется, а не обновляется,
+     * чтобы конфликт ключа приводил к ошибке, а не к перезаписи чужой брони
+     * @return true
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    /**
+     * получение id сотрудника
+     * @return id сотрудника
+     */
+    public Long getEmployeeId() {
+        return employeeId;
+    }
+
+    /**
+     * получение даты выполнения заказа
+     * @return дата выполнения заказа
+     */
+    public LocalDate getTargetDate() {
+        return targetDate;
+    }
+
+    /**
+     * получение id заказа
+     * @return id заказа
+     */
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    /**
+     * Составной ключ занятости сотрудника
+     */
+    public static class Key implements Serializable {
+
+        private Long employeeId;
+
+        private LocalDate targetDate;
+
+        /**
+         * пустой конструктор
+         */
+        public Key() {
+        }
+
+        /**
+         * параметризованный конструктор
+         * @param employeeId id сотрудника
+         * @param targetDate дата выполнения заказа
+         */
+        public Key(Long employeeId, LocalDate targetDate) {
+            this.employeeId = employeeId;
+            this.targetDate = targetDate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key key = (Key) o;
+            return Objects.equals(employeeId, key.employeeId) && Objects.equals(targetDate, key.targetDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(employeeId, targetDate);
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package truckapp.model;
 
+import org.springframework.format.annotation.DateTimeFormat;
+
 import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.Date;
 import java.util.List;
 
@@ -11,11 +15,16 @@ import java.util.List;
  * @version 0.1
  */
 @Entity
-@Table(schema = "public", name = "order8")
+@Table(schema = "public", name = "order8",
+        uniqueConstraints = @UniqueConstraint(name = "order8_truck_id_target_date_key",
+                columnNames = {"truck_id", "target_date"}),
+        indexes = {@Index(name = "order8_customer_username_id_idx", columnList = "customer_username, id"),
+                @Index(name = "order8_target_date_idx", columnList = "target_date")})
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order8_id_seq")
+    @SequenceGenerator(name = "order8_id_seq", sequenceName = "order8_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "customer_username")
@@ -27,17 +36,19 @@ public class Order {
     @Column(name = "address_to")
     private String addressTo;
 
-    @Column(name = "distance")
-    private String distance;
+    @Column(name = "distance_m")
+    private Integer distanceM;
 
-    @Column(name = "duration")
-    private String duration;
+    @Column(name = "duration_s")
+    private Integer durationS;
 
     @Column(name = "target_date")
-    private String targetDate;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate targetDate;
 
-    @Column(name = "targetTime")
-    private String targetTime;
+    @Column(name = "target_time")
+    @DateTimeFormat(pattern = "HH:mm")
+    private LocalTime targetTime;
 
     @Column(name = "creation_date")
     private Date creationDate;
@@ -49,7 +60,9 @@ public class Order {
                     CascadeType.REFRESH})
     @JoinTable(name = "employees_orders",
             joinColumns = @JoinColumn(name = "order_id"),
-            inverseJoinColumns = @JoinColumn(name = "employee_id"))
+            inverseJoinColumns = @JoinColumn(name = "employee_id"),
+            indexes = {@Index(name = "employees_orders_order_id_idx", columnList = "order_id"),
+                    @Index(name = "employees_orders_employee_id_idx", columnList = "employee_id")})
     private List<Employee> workers;
 
     @ManyToOne(fetch = FetchType.LAZY,
@@ -77,8 +90,8 @@ public class Order {
      * @param targetDate дата выполнения заказа
      * @param targetTime время выполнения заказа
      * @param creationDate дата оформления заказа
-     * @param distance дистанция перевозки груза
-     * @param duration длительность перевозки груза
+     * @param distanceM дистанция перевозки груза в метрах
+     * @param durationS длительность перевозки груза в секундах
      * @param workers список сотрудников
      * @param truck автомобиль
      * @param price примерная стоимость выполнения заказа
@@ -86,11 +99,11 @@ public class Order {
     public Order(String customerUsername,
                  String addressFrom,
                  String addressTo,
-                 String targetDate,
-                 String targetTime,
+                 LocalDate targetDate,
+                 LocalTime targetTime,
                  Date creationDate,
-                 String distance,
-                 String duration,
+                 Integer distanceM,
+                 Integer durationS,
                  List<Employee> workers,
                  Truck truck,
                  int price) {
@@ -100,8 +113,8 @@ public class Order {
         this.targetDate = targetDate;
         this.targetTime = targetTime;
         this.creationDate = creationDate;
-        this.distance = distance;
-        this.duration = duration;
+        this.distanceM = distanceM;
+        this.durationS = durationS;
         this.workers = workers;
         this.truck = truck;
         this.price = price;
@@ -175,7 +188,7 @@ public class Order {
      * получение даты выполнения заказа
      * @return targetDate - дата выполнения заказа
      */
-    public String getTargetDate() {
+    public LocalDate getTargetDate() {
         return targetDate;
     }
 
@@ -183,7 +196,7 @@ public class Order {
      * установка даты выполнения заказа
      * @param targetDate дата выполнения заказа
      */
-    public void setTargetDate(String targetDate) {
+    public void setTargetDate(LocalDate targetDate) {
         this.targetDate = targetDate;
     }
 
@@ -191,7 +204,7 @@ public class Order {
      * получение времени выполнения заказа
      * @return время выполнения заказа
      */
-    public String getTargetTime() {
+    public LocalTime getTargetTime() {
         return targetTime;
     }
 
@@ -199,7 +212,7 @@ public class Order {
      * установка времени выполнения заказа
      * @param targetTime время выполнения заказа
      */
-    public void setTargetTime(String targetTime) {
+    public void setTargetTime(LocalTime targetTime) {
         this.targetTime = targetTime;
     }
 
@@ -220,35 +233,35 @@ public class Order {
     }
 
     /**
-     * получение длительности перевозки
-     * @return длительность перевозки
+     * получение дистанции перевозки
+     * @return дистанция перевозки в метрах
      */
-    public String getDistance() {
-        return distance;
+    public Integer getDistanceM() {
+        return distanceM;
     }
 
     /**
-     * установка длительности перевозки
-     * @param distance длительность перевозки
+     * установка дистанции перевозки
+     * @param distanceM дистанция перевозки в метрах
      */
-    public void setDistance(String distance) {
-        this.distance = distance;
+    public void setDistanceM(Integer distanceM) {
+        this.distanceM = distanceM;
     }
 
     /**
      * получение продолжительности перевозки
-     * @return продолжительность перевозки
+     * @return продолжительность перевозки в секундах
      */
-    public String getDuration() {
-        return duration;
+    public Integer getDurationS() {
+        return durationS;
     }
 
     /**
      * установка продолжительности перевозки
-     * @param duration продолжительность перевозки
+     * @param durationS продолжительность перевозки в секундах
      */
-    public void setDuration(String duration) {
-        this.duration = duration;
+    public void setDurationS(Integer durationS) {
+        this.durationS = durationS;
     }
 
     /**
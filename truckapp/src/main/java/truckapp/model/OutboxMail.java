@@ -0,0 +1,181 @@
+package truckapp.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Модель письма в очереди на отправку.
+ * Письмо сохраняется в одной транзакции с заказом или пользователем,
+ * а отправляется позже фоновым диспетчером
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@Entity
+@Table(schema = "public", name = "mail_outbox8",
+        indexes = @Index(name = "mail_outbox8_status_next_attempt_at_idx", columnList = "status, next_attempt_at"))
+public class OutboxMail {
+
+    /**
+     * Состояние письма: ожидает отправки или отправка прекращена после всех попыток.
+     * Отправленные письма удаляются из очереди
+     */
+    public enum Status {
+        PENDING, DEAD
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mail_outbox8_id_seq")
+    @SequenceGenerator(name = "mail_outbox8_id_seq", sequenceName = "mail_outbox8_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    @Column(name = "subject", nullable = false)
+    private String subject;
+
+    @Column(name = "body", nullable = false, columnDefinition = "text")
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    /**
+     * пустой конструктор
+     */
+    public OutboxMail() {
+    }
+
+    /**
+     * параметризованный конструктор нового письма, готового к отправке
+     * @param recipient адрес эл.почты получателя
+     * @param subject тема письма
+     * @param body текст сообщения
+     */
+    public OutboxMail(String recipient, String subject, String body) {
+        this.recipient = recipient;
+        this.subject = subject;
+        this.body = body;
+        this.status = Status.PENDING;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = createdAt;
+    }
+
+    /**
+     * получение id письма
+     * @return id письма
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * получение адреса получателя
+     * @return адрес эл.почты получателя
+     */
+    public String getRecipient() {
+        return recipient;
+    }
+
+    /**
+     * получение темы письма
+     * @return тема письма
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * получение текста письма
+     * @return текст сообщения
+     */
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * получение состояния письма
+     * @return состояние письма
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * установка состояния письма
+     * @param status состояние письма
+     */
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * получение количества неудачных попыток отправки
+     * @return количество попыток
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * установка количества неудачных попыток отправки
+     * @param attempts количество попыток
+     */
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    /**
+     * получение времени следующей попытки отправки
+     * @return время следующей попытки
+     */
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    /**
+     * установка времени следующей попытки отправки
+     * @param nextAttemptAt время следующей попытки
+     */
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    /**
+     * получение времени постановки письма в очередь
+     * @return время создания письма
+     */
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * получение текста последней ошибки отправки
+     * @return текст ошибки
+     */
+    public String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * установка текста последней ошибки отправки
+     * @param lastError текст ошибки
+     */
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
@@ -1,5 +1,8 @@
 package truckapp.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.util.List;
 
@@ -10,7 +13,11 @@ import java.util.List;
  * @version 0.2
  */
 @Entity
-@Table(schema = "public", name = "truck8")
+@Table(schema = "public", name = "truck8",
+        indexes = {@Index(name = "truck8_car_number_idx", columnList = "car_number"),
+                @Index(name = "truck8_description_idx", columnList = "description")})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "truck")
 public class Truck {
 
     @Id
@@ -48,6 +55,22 @@ public class Truck {
         this.orders = orders;
     }
 
+    /**
+     * получение номера грузовика
+     * @return id - номер грузовика
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * установка номера грузовика
+     * @param id номер грузовика
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     /**
      * получение характеристики грузовика
      * @return description - характеристика грузовика
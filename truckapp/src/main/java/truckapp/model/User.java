@@ -2,24 +2,24 @@ package truckapp.model;
 
 import truckapp.roles.Role;
 import org.hibernate.validator.constraints.NotBlank;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
 
 import javax.persistence.*;
 import javax.validation.Constraint;
 import javax.validation.constraints.Email;
-import java.util.Collection;
 import java.util.Set;
 
 /**
- * Модель пользователя
+ * Модель пользователя. В контекст безопасности попадает не сама сущность, а {@link AuthenticatedUser}
  *
  * @author kanenkovaa
  * @version 0.1
  */
 @Entity
-@Table(schema = "public", name = "user8")
-public class User implements UserDetails {
+@Table(schema = "public", name = "user8",
+        indexes = {@Index(name = "user8_username_key", columnList = "username", unique = true),
+                @Index(name = "user8_email_key", columnList = "email", unique = true),
+                @Index(name = "user8_phone_number_key", columnList = "phone_number", unique = true)})
+public class User {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -31,20 +31,18 @@ public class User implements UserDetails {
     @Column(name = "email")
     private String email;
 
-    @Column(name = "activation_code")
-    private String activationCode;
-
     @Column(name = "password")
     private String password;
 
     @Column(name = "phone_number")
     private String phoneNumber;
 
-    @Column(name = "reset_password_token")
-    private String resetPasswordToken;
+    @Column(name = "activated")
+    private boolean activated;
 
     @ElementCollection(targetClass = Role.class, fetch = FetchType.EAGER)
-    @CollectionTable(name = "user_role8", joinColumns = @JoinColumn(name = "user_id"))
+    @CollectionTable(name = "user_role8", joinColumns = @JoinColumn(name = "user_id"),
+            indexes = @Index(name = "user_role8_user_id_idx", columnList = "user_id"))
     @Enumerated(EnumType.STRING)
     private Set<Role> roles;
 
@@ -58,24 +56,30 @@ public class User implements UserDetails {
      * параметризованный конструктор
      * @param username никнейм пользователя
      * @param email адрес эл.почты
-     * @param activationCode код для активации учётной записи
+     * @param activated true, если учётная запись активирована
      * @param password пароль
      * @param phoneNumber номер телефона
-     * @param resetPasswordToken токен для восстановления пароля
      * @param roles набор ролей
      */
-    public User(String username, String email, String activationCode, String password, String phoneNumber, String resetPasswordToken, Set<Role> roles) {
+    public User(String username, String email, boolean activated, String password, String phoneNumber, Set<Role> roles) {
         this.username = username;
         this.email = email;
-        this.activationCode = activationCode;
+        this.activated = activated;
         this.password = password;
         this.phoneNumber = phoneNumber;
-        this.resetPasswordToken = resetPasswordToken;
         this.roles = roles;
     }
 
 
 
+    /**
+     * получение id пользователя
+     * @return id - id пользователя
+     */
+    public Long getId() {
+        return id;
+    }
+
     /**
      * получение никнейма пользователя
      * @return username - никнейм пользователя
@@ -84,26 +88,6 @@ public class User implements UserDetails {
         return username;
     }
 
-    @Override
-    public boolean isAccountNonExpired() {
-        return true;
-    }
-
-    @Override
-    public boolean isAccountNonLocked() {
-        return true;
-    }
-
-    @Override
-    public boolean isCredentialsNonExpired() {
-        return true;
-    }
-
-    @Override
-    public boolean isEnabled() {
-        return true;
-    }
-
     /**
      * установка никнейма пользователя
      * @param username никнейм пользователя
@@ -129,28 +113,19 @@ public class User implements UserDetails {
     }
 
     /**
-     * получение кода активаии учётной записи
-     * @return activationCode - код активации учётной записи
+     * проверка активации учётной записи
+     * @return activated - true, если учётная запись активирована
      */
-    public String getActivationCode() {
-        return activationCode;
+    public boolean isActivated() {
+        return activated;
     }
 
     /**
-     * установка кода активации учётной записи
-     * @param activationCode код активации учётной записи
+     * установка признака активации учётной записи
+     * @param activated true, если учётная запись активирована
      */
-    public void setActivationCode(String activationCode) {
-        this.activationCode = activationCode;
-    }
-
-    /**
-     * получение ролей пользователя
-     * @return roles - набор ролей
-     */
-    @Override
-    public Collection<? extends GrantedAuthority> getAuthorities() {
-        return roles;
+    public void setActivated(boolean activated) {
+        this.activated = activated;
     }
 
     /**
@@ -185,22 +160,6 @@ public class User implements UserDetails {
         this.phoneNumber = phoneNumber;
     }
 
-    /**
-     * получение токена для смены пароля
-     * @return токен для смены пароля
-     */
-    public String getResetPasswordToken() {
-        return resetPasswordToken;
-    }
-
-    /**
-     * установка токена для смены пароля
-     * @param resetPasswordToken токен для смены пароля
-     */
-    public void setResetPasswordToken(String resetPasswordToken) {
-        this.resetPasswordToken = resetPasswordToken;
-    }
-
     /**
      * получение набора ролей
      * @return roles - набор ролей
@@ -0,0 +1,104 @@
+package truckapp.model;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Модель одноразового токена из письма: активации учётной записи или смены пароля.
+ * Сам токен не хранится: ключом служит его SHA-256, поэтому по содержимому таблицы
+ * нельзя перейти по ссылке из чужого письма. Просроченные токены удаляются фоновой очисткой
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@Entity
+@Table(schema = "public", name = "user_token8",
+        indexes = {@Index(name = "user_token8_expires_at_idx", columnList = "expires_at"),
+                @Index(name = "user_token8_user_id_idx", columnList = "user_id")})
+public class UserToken implements Persistable<String> {
+
+    /**
+     * Назначение токена
+     */
+    public enum Type {
+        ACTIVATION, PASSWORD_RESET
+    }
+
+    @Id
+    @Column(name = "token_hash", length = 64)
+    private String tokenHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 16)
+    private Type type;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    /**
+     * пустой конструктор
+     */
+    public UserToken() {
+    }
+
+    /**
+     * параметризованный конструктор
+     * @param tokenHash SHA-256 токена в шестнадцатеричном виде
+     * @param type назначение токена
+     * @param userId id пользователя
+     * @param expiresAt момент, после которого токен недействителен
+     */
+    public UserToken(String tokenHash, Type type, Long userId, LocalDateTime expiresAt) {
+        this.tokenHash = tokenHash;
+        this.type = type;
+        this.userId = userId;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * получение ключа токена
+     * @return SHA-256 токена
+     */
+    @Override
+    public String getId() {
+        return tokenHash;
+    }
+
+    /**
+     * Токены только вставляются и удаляются, поэтому сохранение не читает строку перед вставкой
+     * @return true
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    /**
+     * получение назначения токена
+     * @return назначение токена
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * получение id пользователя
+     * @return id пользователя
+     */
+    public Long getUserId() {
+        return userId;
+    }
+
+    /**
+     * получение срока действия токена
+     * @return момент, после которого токен недействителен
+     */
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+}
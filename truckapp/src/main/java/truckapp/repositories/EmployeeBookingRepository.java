@@ -0,0 +1,24 @@
+package truckapp.repositories;
+
+import truckapp.model.EmployeeBooking;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * JPA репозиторий для занятости сотрудников
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+public interface EmployeeBookingRepository extends JpaRepository<EmployeeBooking, EmployeeBooking.Key> {
+
+    /**
+     * Удаление занятости сотрудников по id заказа
+     * @param orderId id заказа
+     */
+    @Modifying
+    @Query("delete from EmployeeBooking b where b.orderId = :orderId")
+    void deleteAllByOrderId(@Param("orderId") Long orderId);
+}
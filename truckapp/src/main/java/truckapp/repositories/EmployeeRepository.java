@@ -1,11 +1,17 @@
 package truckapp.repositories;
 
+import truckapp.dto.EmployeeRow;
 import truckapp.model.Employee;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * jpa репозиторий для работников компании
@@ -16,11 +22,12 @@ import java.util.List;
 public interface EmployeeRepository extends JpaRepository<Employee, Long> {
 
     /**
-     * Метод поиска сотрудников по подстроке их имени или фамилии
-     * @param employeeName подстрока имени и фамилии
-     * @return список сотрудников
+     * Получение всех сотрудников. Результат хранится в кэше запросов до изменения таблицы сотрудников
+     * @return лист сотрудников
      */
-    List<Employee> findByNameContainingIgnoreCase(String employeeName);
+    @Override
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    List<Employee> findAll();
 
     /**
      * Метод поиска сотрудника по имени и фамилии
@@ -28,4 +35,72 @@ public interface EmployeeRepository extends JpaRepository<Employee, Long> {
      * @return объект сотрудника
      */
     Employee findByName(String name);
+
+    /**
+     * Получение id всех сотрудников
+     * @return список id сотрудников
+     */
+    @Query("select e.id from Employee e")
+    List<Long> findAllIds();
+
+    /**
+     * Получение страницы строк сотрудников, следующих после указанной пары (имя, id)
+     * @param name имя последней строки предыдущей страницы
+     * @param id id последней строки предыдущей страницы
+     * @param pageable ограничение размера страницы
+     * @return список строк сотрудников
+     */
+    @Query("select new truckapp.dto.EmployeeRow(e.id, e.name, count(o)) " +
+            "from Employee e left join e.orders o " +
+            "where e.name >= :name and (e.name > :name or e.id > :id) " +
+            "group by e.id, e.name order by e.name, e.id")
+    List<EmployeeRow> findEmployeeRowsAfter(@Param("name") String name, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Поиск id сотрудников по подстроке имени или фамилии без учёта регистра.
+     * Условие ILIKE обслуживается триграммным GIN индексом employee8_name_trgm_idx,
+     * результаты упорядочены по похожести имени на искомую строку
+     * @param pattern подстрока с экранированными символами %, _ и \
+     * @param name подстрока имени или фамилии
+     * @param limit количество строк
+     * @param offset смещение от начала выборки
+     * @return список id сотрудников
+     */
+    @Query(value = "select e.id from employee8 e " +
+            "where e.name ilike '%' || :pattern || '%' " +
+            "order by similarity(e.name, :name) desc, e.name, e.id " +
+            "limit :limit offset :offset", nativeQuery = true)
+    List<Number> searchIdsByName(@Param("pattern") String pattern,
+                                 @Param("name") String name,
+                                 @Param("limit") int limit,
+                                 @Param("offset") int offset);
+
+    /**
+     * Получение строк сотрудников с количеством назначенных заказов по их id
+     * @param ids id сотрудников
+     * @return список строк сотрудников в произвольном порядке
+     */
+    @Query("select new truckapp.dto.EmployeeRow(e.id, e.name, count(o)) " +
+            "from Employee e left join e.orders o where e.id in :ids group by e.id, e.name")
+    List<EmployeeRow> findEmployeeRowsByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Чтение строк всех сотрудников с количеством заказов курсором бд порциями по 500 строк.
+     * Поток должен читаться и закрываться внутри транзакции
+     * @return поток строк сотрудников в порядке id
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new truckapp.dto.EmployeeRow(e.id, e.name, count(o)) " +
+            "from Employee e left join e.orders o group by e.id, e.name order by e.id")
+    Stream<EmployeeRow> streamEmployeeRows();
+
+    /**
+     * Получение версии списка сотрудников с количеством заказов по счётчику сотрудников из table_version8
+     * и сумме счётчиков заказчиков из customer_version8: назначения на заказы меняются только вместе с заказами.
+     * Счётчики увеличивают триггеры при любом изменении таблиц, см. миграции V25 и V26
+     * @return строка версии
+     */
+    @Query(value = "select coalesce((select version from table_version8 where name = 'employee8'), 0) || '-' || " +
+            "(select coalesce(sum(version), 0) from customer_version8)", nativeQuery = true)
+    String findVersion();
 }
@@ -1,12 +1,19 @@
 package truckapp.repositories;
 
+import truckapp.dto.OrderRow;
 import truckapp.model.Order;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * JPA репозиторий для заказов
@@ -16,13 +23,6 @@ import java.util.List;
  */
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
-    /**
-     * Поиск заказов по никнейму заказчика
-     * @param customerUsername никнейм заказчика, по которму идёт посик заказов
-     * @return Лист объектов Order
-     */
-    List<Order> findAllByCustomerUsername(String customerUsername);
-
     /**
      * Удаление заказа по его id
      * @param id id заказа
@@ -30,15 +30,145 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     void deleteById(Long id);
 
     /**
-     * Метод для получения списка всех заказов, отсортированных по никнейму заказчика
-     * @return отсортированный список всех заказов
+     * Получение пар (дата выполнения, id автомобиля) заказов, начиная с указанной даты
+     * @param from первая дата выполнения
+     * @return список массивов [targetDate, truckId]
+     */
+    @Query("select o.targetDate, t.id from Order o join o.truck t where o.targetDate >= :from")
+    List<Object[]> findTargetDatesAndTruckIdsFrom(@Param("from") LocalDate from);
+
+    /**
+     * Получение пар (дата выполнения, id сотрудника) заказов, начиная с указанной даты
+     * @param from первая дата выполнения
+     * @return список массивов [targetDate, employeeId]
+     */
+    @Query("select o.targetDate, w.id from Order o join o.workers w where o.targetDate >= :from")
+    List<Object[]> findTargetDatesAndWorkerIdsFrom(@Param("from") LocalDate from);
+
+    /**
+     * Получение id автомобилей, занятых на указанную дату
+     * @param targetDate дата выполнения заказа
+     * @return список id автомобилей
+     */
+    @Query("select t.id from Order o join o.truck t where o.targetDate = :targetDate")
+    List<Long> findTruckIdsByTargetDate(@Param("targetDate") LocalDate targetDate);
+
+    /**
+     * Получение id сотрудников, занятых на указанную дату
+     * @param targetDate дата выполнения заказа
+     * @return список id сотрудников
+     */
+    @Query("select w.id from Order o join o.workers w where o.targetDate = :targetDate")
+    List<Long> findWorkerIdsByTargetDate(@Param("targetDate") LocalDate targetDate);
+
+    /**
+     * Получение страницы строк заказов, следующих после указанной пары (никнейм заказчика, id).
+     * Условие по customerUsername >= :username позволяет читать индекс (customer_username, id)
+     * с нужного места, поэтому стоимость страницы не зависит от её номера
+     * @param username никнейм заказчика последней строки предыдущей страницы
+     * @param id id последней строки предыдущей страницы
+     * @param pageable ограничение размера страницы
+     * @return список строк заказов
+     */
+    @Query("select new truckapp.dto.OrderRow(o.id, o.customerUsername, o.addressFrom, o.addressTo, " +
+            "o.targetDate, o.targetTime, o.creationDate, t.carNumber, t.description, o.price) " +
+            "from Order o left join o.truck t " +
+            "where o.customerUsername >= :username and (o.customerUsername > :username or o.id > :id) " +
+            "order by o.customerUsername, o.id")
+    List<OrderRow> findOrderRowsAfter(@Param("username") String username, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Получение страницы строк заказов пользователя, следующих после указанного id
+     * @param customerUsername никнейм заказчика
+     * @param id id последней строки предыдущей страницы
+     * @param pageable ограничение размера страницы
+     * @return список строк заказов
+     */
+    @Query("select new truckapp.dto.OrderRow(o.id, o.customerUsername, o.addressFrom, o.addressTo, " +
+            "o.targetDate, o.targetTime, o.creationDate, t.carNumber, t.description, o.price) " +
+            "from Order o left join o.truck t " +
+            "where o.customerUsername = :username and o.id > :id order by o.id")
+    List<OrderRow> findCustomerOrderRowsAfter(@Param("username") String customerUsername, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Получение пар (id заказа, имя сотрудника) для указанных заказов
+     * @param orderIds id заказов
+     * @return список массивов [orderId, employeeName]
+     */
+    @Query("select o.id, w.name from Order o join o.workers w where o.id in :orderIds order by w.id")
+    List<Object[]> findWorkerNamesByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Поиск id заказов по подстроке никнейма заказчика без учёта регистра.
+     * Условие ILIKE обслуживается триграммным GIN индексом order8_customer_username_trgm_idx,
+     * результаты упорядочены по похожести никнейма на искомую строку
+     * @param pattern подстрока с экранированными символами %, _ и \
+     * @param username подстрока никнейма заказчика
+     * @param limit количество строк
+     * @param offset смещение от начала выборки
+     * @return список id заказов
+     */
+    @Query(value = "select o.id from order8 o " +
+            "where o.customer_username ilike '%' || :pattern || '%' " +
+            "order by similarity(o.customer_username, :username) desc, o.customer_username, o.id " +
+            "limit :limit offset :offset", nativeQuery = true)
+    List<Number> searchIdsByCustomerUsername(@Param("pattern") String pattern,
+                                             @Param("username") String username,
+                                             @Param("limit") int limit,
+                                             @Param("offset") int offset);
+
+    /**
+     * Получение строк заказов по их id
+     * @param ids id заказов
+     * @return список строк заказов в произвольном порядке
+     */
+    @Query("select new truckapp.dto.OrderRow(o.id, o.customerUsername, o.addressFrom, o.addressTo, " +
+            "o.targetDate, o.targetTime, o.creationDate, t.carNumber, t.description, o.price) " +
+            "from Order o left join o.truck t where o.id in :ids")
+    List<OrderRow> findOrderRowsByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Чтение строк всех заказов курсором бд порциями по 500 строк.
+     * Поток должен читаться и закрываться внутри транзакции
+     * @return поток строк заказов в порядке id
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new truckapp.dto.OrderRow(o.id, o.customerUsername, o.addressFrom, o.addressTo, " +
+            "o.targetDate, o.targetTime, o.creationDate, t.carNumber, t.description, o.price) " +
+            "from Order o left join o.truck t order by o.id")
+    Stream<OrderRow> streamOrderRows();
+
+    /**
+     * Чтение строк заказов пользователя курсором бд порциями по 500 строк.
+     * Поток должен читаться и закрываться внутри транзакции
+     * @param customerUsername никнейм заказчика
+     * @return поток строк заказов в порядке id
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new truckapp.dto.OrderRow(o.id, o.customerUsername, o.addressFrom, o.addressTo, " +
+            "o.targetDate, o.targetTime, o.creationDate, t.carNumber, t.description, o.price) " +
+            "from Order o left join o.truck t where o.customerUsername = :username order by o.id")
+    Stream<OrderRow> streamCustomerOrderRows(@Param("username") String customerUsername);
+
+    /**
+     * Получение версии списка заказов: суммы счётчиков заказчиков из customer_version8
+     * и счётчиков грузовиков и сотрудников из table_version8, имена которых выводятся в строках заказов.
+     * Счётчики увеличивают триггеры при любом изменении таблиц, см. миграции V25 и V26.
+     * Общего счётчика заказов нет, чтобы бронирования не ждали друг друга на одной строке
+     * @return строка версии
      */
-    List<Order> findAllByOrderByCustomerUsername();
+    @Query(value = "select (select coalesce(sum(version), 0) from customer_version8) || '-' || " +
+            "coalesce((select version from table_version8 where name = 'truck8'), 0) || '-' || " +
+            "coalesce((select version from table_version8 where name = 'employee8'), 0)", nativeQuery = true)
+    String findVersion();
 
     /**
-     * Поиск заказов по подстроке никнейма заказчика
-     * @param username никнейм заказчика
-     * @return список заказов
+     * Получение версии списка заказов пользователя по счётчику его заказов, см. {@link #findVersion()}
+     * @param customerUsername никнейм заказчика
+     * @return строка версии
      */
-    List<Order> findAllByCustomerUsernameContainingIgnoreCase(String username);
+    @Query(value = "select coalesce((select version from customer_version8 where customer_username = :username), 0) " +
+            "|| '-' || coalesce((select version from table_version8 where name = 'truck8'), 0) || '-' || " +
+            "coalesce((select version from table_version8 where name = 'employee8'), 0)", nativeQuery = true)
+    String findCustomerVersion(@Param("username") String customerUsername);
 }
@@ -0,0 +1,40 @@
+package truckapp.repositories;
+
+import truckapp.model.OutboxMail;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * JPA репозиторий для очереди писем
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+public interface OutboxMailRepository extends JpaRepository<OutboxMail, Long> {
+
+    /**
+     * Выборка и блокировка писем, время отправки которых наступило.
+     * Строки, заблокированные другим экземпляром приложения, пропускаются
+     * @param now текущее время
+     * @param limit максимальное количество писем
+     * @return список писем
+     */
+    @Query(value = "select * from mail_outbox8 " +
+            "where status = 'PENDING' and next_attempt_at <= :now " +
+            "order by id limit :limit for update skip locked", nativeQuery = true)
+    List<OutboxMail> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Удаление отправленных писем
+     * @param ids id писем
+     */
+    @Modifying
+    @Query("delete from OutboxMail m where m.id in :ids")
+    void deleteAllByIds(@Param("ids") Collection<Long> ids);
+}
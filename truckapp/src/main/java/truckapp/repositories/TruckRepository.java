@@ -1,9 +1,14 @@
 package truckapp.repositories;
 
+import truckapp.dto.TruckRow;
 import truckapp.model.Truck;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * jpa репозиторий для грузовиков
@@ -18,6 +23,7 @@ public interface TruckRepository extends CrudRepository<Truck, Long> {
      * @param description характеристика грузовика
      * @return лист грузовиков с указанной характеристикой
      */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
     List<Truck> findAllByDescription(String description);
 
     /**
@@ -26,4 +32,37 @@ public interface TruckRepository extends CrudRepository<Truck, Long> {
      * @return грузовик с указанным номером
      */
     Truck findByCarNumber(String carNumber);
+
+    /**
+     * Проверка существования грузовика с номером без загрузки сущности,
+     * запрос обслуживается индексом truck8_car_number_idx
+     * @param carNumber автомобильный номер
+     * @return true, если номер уже занят
+     */
+    boolean existsByCarNumber(String carNumber);
+
+    /**
+     * Получение пар (характеристика, id) всех грузовиков
+     * @return список массивов [description, id]
+     */
+    @Query("select t.description, t.id from Truck t")
+    List<Object[]> findAllDescriptionsAndIds();
+
+    /**
+     * Чтение строк всех грузовиков курсором бд порциями по 500 строк.
+     * Поток должен читаться и закрываться внутри транзакции
+     * @return поток строк грузовиков в порядке id
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new truckapp.dto.TruckRow(t.id, t.description, t.carNumber) from Truck t order by t.id")
+    Stream<TruckRow> streamTruckRows();
+
+    /**
+     * Получение версии таблицы грузовиков по счётчику из table_version8.
+     * Счётчик увеличивает триггер при любом изменении таблицы, см. миграцию V25
+     * @return строка версии
+     */
+    @Query(value = "select cast(coalesce((select version from table_version8 where name = 'truck8'), 0) " +
+            "as varchar)", nativeQuery = true)
+    String findVersion();
 }
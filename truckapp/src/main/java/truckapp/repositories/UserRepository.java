@@ -2,7 +2,9 @@ package truckapp.repositories;
 
 import truckapp.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -15,6 +17,21 @@ import java.util.List;
  */
 public interface UserRepository extends JpaRepository<User, Long> {
 
+   /**
+    * бит результата {@link #findCollisions}: никнейм занят
+    */
+   int USERNAME_TAKEN = 1;
+
+   /**
+    * бит результата {@link #findCollisions}: адрес эл.почты занят
+    */
+   int EMAIL_TAKEN = 2;
+
+   /**
+    * бит результата {@link #findCollisions}: номер телефона занят
+    */
+   int PHONE_NUMBER_TAKEN = 4;
+
    /**
     * Поиск пользователя в бд по его никнейму
     *
@@ -40,16 +57,32 @@ public interface UserRepository extends JpaRepository<User, Long> {
    User findByPhoneNumber(String phoneNumber);
 
    /**
-    * Поиск пользователя по коду активации учётной записи
-    * @param code код активации учётной записи
-    * @return a {@link truckapp.model.User} object.
+    * Проверка занятости никнейма, адреса эл.почты и номера телефона одним запросом
+    * по уникальным индексам user8
+    * @param username никнейм
+    * @param email адрес эл.почты
+    * @param phoneNumber номер телефона
+    * @return сумма битов USERNAME_TAKEN, EMAIL_TAKEN и PHONE_NUMBER_TAKEN занятых значений, 0 - если все свободны
+    */
+   @Query(value = "select (case when exists(select 1 from user8 where username = :username) then 1 else 0 end) " +
+           "+ (case when exists(select 1 from user8 where email = :email) then 2 else 0 end) " +
+           "+ (case when exists(select 1 from user8 where phone_number = :phoneNumber) then 4 else 0 end)",
+           nativeQuery = true)
+   int findCollisions(@Param("username") String username,
+                      @Param("email") String email,
+                      @Param("phoneNumber") String phoneNumber);
+
+   /**
+    * Проверка занятости никнейма
+    * @param username никнейм
+    * @return true, если пользователь с таким никнеймом есть
     */
-    User findByActivationCode(String code);
+   boolean existsByUsername(String username);
 
    /**
-    * Поиск пользователя по токену для смены пароля
-    * @param token
-    * @return
+    * Получение никнеймов, адресов эл.почты и номеров телефона всех пользователей
+    * @return список массивов [username, email, phoneNumber]
     */
-    User findByResetPasswordToken(String token);
+   @Query("select u.username, u.email, u.phoneNumber from User u")
+   List<Object[]> findAllUsernamesEmailsAndPhoneNumbers();
 }
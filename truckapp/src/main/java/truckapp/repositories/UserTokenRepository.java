@@ -0,0 +1,25 @@
+package truckapp.repositories;
+
+import truckapp.model.UserToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * JPA репозиторий для токенов активации и смены пароля
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+public interface UserTokenRepository extends JpaRepository<UserToken, String> {
+
+    /**
+     * Удаление токенов пользователя одного назначения
+     * @param userId id пользователя
+     * @param type назначение токена
+     */
+    @Modifying
+    @Query("delete from UserToken t where t.userId = :userId and t.type = :type")
+    void deleteAllByUserIdAndType(@Param("userId") Long userId, @Param("type") UserToken.Type type);
+}
@@ -1,17 +1,17 @@
 package truckapp.services;
 
+import truckapp.dto.EmployeeRow;
+import truckapp.dto.KeysetPage;
+import truckapp.dto.OrderRow;
+import truckapp.model.AuthenticatedUser;
 import truckapp.model.Employee;
-import truckapp.model.Order;
 import truckapp.model.Truck;
-import truckapp.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.ui.Model;
 import org.springframework.ui.ModelMap;
 import org.springframework.validation.BindingResult;
 
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Сервис, реализующий логику работы страницы администратора
@@ -33,17 +33,19 @@ public class AdminService {
     /**
      * Метод получения страницы администратора
      * @param user объект пользователя(администратора)
+     * @param ordersToken токен страницы заказов
+     * @param employeesToken токен страницы сотрудников
      * @param model модель веб-страницы
      * @return
      */
-    public String getAdminPage(User user, Model model) {
-        if (user.getActivationCode() != null)
+    public String getAdminPage(AuthenticatedUser user, String ordersToken, String employeesToken, Model model) {
+        if (!user.isActivated())
             model.addAttribute("notActivated", "Вы не активировали учётную запись," +
                     " в связи с этим, некоторые функции личного кабинета недоступны");
         model.addAttribute("user", user);
         model.addAttribute("isChecking", "users");
-        model.addAttribute("allUsersOrders", orderService.findAllByOrderByCustomerUsername());
-        model.addAttribute("allEmployees", employeeService.findAll());
+        addOrdersPage(orderService.findOrderRowsPage(ordersToken), ordersToken, model);
+        addEmployeesPage(employeeService.findEmployeeRowsPage(employeesToken), employeesToken, model);
         return "admin";
     }
 
@@ -52,8 +54,8 @@ public class AdminService {
      * @param user объект пользователя(администратора)
      * @param model модель веб-страницы
      */
-    public void checkUserActivationCode(User user, Model model) {
-        if (user.getActivationCode() != null)
+    public void checkUserActivationCode(AuthenticatedUser user, Model model) {
+        if (!user.isActivated())
             model.addAttribute("notActivated", "Вы не активировали учётную запись," +
                     " в связи с этим, некоторые функции личного кабинета недоступны");
         model.addAttribute("user", user);
@@ -62,23 +64,21 @@ public class AdminService {
     /**
      * Метод осуществляющий поиск пользователей и их заказов по введённой подстроке имени пользователя
      * @param username подстрока имени пользователя
+     * @param page номер страницы результатов поиска
      * @param model модель веб страницы
      * @return перенаправление на страницу администатора или возврат страницы администратора
      */
-    public String searchUsers(String username, Model model) {
+    public String searchUsers(String username, int page, Model model) {
         if (username.isEmpty()) {
             return "redirect:/admin/main";
         }
         else {
-            List<Order> orderList = new ArrayList<>();
-            for (Order order1 : orderService.findAll()) {
-                if (order1.getCustomerUsername().toUpperCase().contains(username.toUpperCase()))
-                    orderList.add(order1);
-            }
+            KeysetPage<OrderRow> orders = orderService.searchOrderRows(username, page);
             model.addAttribute("username", username);
             model.addAttribute("isChecking", "users");
-            model.addAttribute("allUsersOrders", orderList);
-            model.addAttribute("allEmployees", employeeService.findAll());
+            model.addAttribute("allUsersOrders", orders.getItems());
+            model.addAttribute("nextUsernamePage", orders.getNextToken());
+            addEmployeesPage(employeeService.findEmployeeRowsPage(null), null, model);
             return "admin";
         }
     }
@@ -86,23 +86,21 @@ public class AdminService {
     /**
      * Метод осуществляющий поиск сотрудников по подстроке их имени и фамилии
      * @param employee подстрока имени и фамилии
+     * @param page номер страницы результатов поиска
      * @param model модель веб-страницы
      * @return перенаправление на страницу администатора или возврат страницы администратора
      */
-    public String checkEmployees(String employee, Model model) {
+    public String checkEmployees(String employee, int page, Model model) {
         if (employee.isEmpty()) {
             return "redirect:/admin/main";
         }
         else {
-            List<Employee> employeeList = new ArrayList<>();
-            for (Employee employee1 : employeeService.findAll()) {
-                if (employee1.getName().toUpperCase().contains(employee.toUpperCase()))
-                    employeeList.add(employee1);
-            }
+            KeysetPage<EmployeeRow> employees = employeeService.searchEmployeeRows(employee, page);
             model.addAttribute("employee", employee);
             model.addAttribute("isChecking", "employees");
-            model.addAttribute("allEmployees", employeeList);
-            model.addAttribute("allUsersOrders", orderService.findAllByOrderByCustomerUsername());
+            model.addAttribute("allEmployees", employees.getItems());
+            model.addAttribute("nextEmployeePage", employees.getNextToken());
+            addOrdersPage(orderService.findOrderRowsPage(null), null, model);
             return "admin";
         }
     }
@@ -114,7 +112,7 @@ public class AdminService {
      * @param model модель веб-страницы
      * @return перенаправление на страницу администатора или возврат страницы добавления новых автомобилей и сотрудников
      */
-    public String addingCar(Truck truck, User user, BindingResult bindingResult, Model model) {
+    public String addingCar(Truck truck, AuthenticatedUser user, BindingResult bindingResult, Model model) {
         if (!truckService.validateTruck(truck, bindingResult, model)) {
             truckService.save(truck);
             return "redirect:/admin/main";
@@ -133,7 +131,7 @@ public class AdminService {
      * @param model модель веб-страницы
      * @return перенаправление на страницу администатора или возврат страницы добавления новых автомобилей и сотрудников
      */
-    public String addingEmployee(Employee employee, User user, BindingResult bindingResult, Model model) {
+    public String addingEmployee(Employee employee, AuthenticatedUser user, BindingResult bindingResult, Model model) {
         if (!employeeService.validateEmployee(employee, bindingResult, model)) {
             employeeService.save(employee);
             return "redirect:/admin/main";
@@ -144,4 +142,28 @@ public class AdminService {
             return "newEmployeeOrCar";
         }
     }
+
+    /**
+     * Добавление страницы заказов и токенов для перехода по страницам
+     * @param page страница заказов
+     * @param token токен текущей страницы
+     * @param model модель веб-страницы
+     */
+    private void addOrdersPage(KeysetPage<OrderRow> page, String token, Model model) {
+        model.addAttribute("allUsersOrders", page.getItems());
+        model.addAttribute("ordersToken", token);
+        model.addAttribute("nextOrdersToken", page.getNextToken());
+    }
+
+    /**
+     * Добавление страницы сотрудников и токенов для перехода по страницам
+     * @param page страница сотрудников
+     * @param token токен текущей страницы
+     * @param model модель веб-страницы
+     */
+    private void addEmployeesPage(KeysetPage<EmployeeRow> page, String token, Model model) {
+        model.addAttribute("allEmployees", page.getItems());
+        model.addAttribute("employeesToken", token);
+        model.addAttribute("nextEmployeesToken", page.getNextToken());
+    }
 }
@@ -1,27 +1,31 @@
 package truckapp.services;
 
-import truckapp.model.Order;
+import truckapp.configuration.PersistentLoginService;
+import truckapp.configuration.TokenService;
+import truckapp.dto.KeysetPage;
+import truckapp.dto.OrderRow;
+import truckapp.dto.UserRow;
+import truckapp.model.AuthenticatedUser;
 import truckapp.model.User;
+import truckapp.model.UserToken;
 import truckapp.repositories.UserRepository;
 import truckapp.roles.Role;
 import truckapp.validators.AuthorizationValidator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
 import org.springframework.ui.ModelMap;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 
-import javax.servlet.http.Cookie;
-import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.util.Collections;
 import java.util.List;
-import java.util.UUID;
 
 /**
  * Сервис, осуществляющий связь контроллеров и таблицы с пользователями
@@ -47,6 +51,24 @@ public class AuthorizationService {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private PersistentLoginService persistentLoginService;
+
+    @Autowired
+    private RegistrationService registrationService;
+
+    @Autowired
+    private UserExistenceFilter userExistenceFilter;
+
+    @Autowired
+    private UserTokenService userTokenService;
+
     /**
      * Кодирование пароля
      *
@@ -74,49 +96,43 @@ public class AuthorizationService {
      * @param model модель веб-страницы
      * @return страницу авторизации или перенаправление на страницу личного кабинета
      */
-    public String checkAuthority(String error, User user, Model model, HttpServletRequest request) {
+    public String checkAuthority(String error, AuthenticatedUser user, Model model) {
         model.addAttribute("user", user);
         if (user != null)
             return "redirect:/main";
         if(error != null){
             model.addAttribute("IncorrectData", "Неправильный логин или пароль");
         }
-        else{
-            Cookie[] cookies = request.getCookies();
-            if(cookies!=null)
-                for (Cookie c: cookies){
-                    if(c.getName().equals("password"))
-                        model.addAttribute("password", c.getValue());
-                    if(c.getName().equals("login"))
-                        model.addAttribute("username", c.getValue());
-                }
-        }
         return "login";
     }
 
     /**
      * Получение страницы личного кабинета
      * @param user объект пользователя
+     * @param ordersToken токен страницы заказов
      * @param model модель веб-страницы
      * @return перенаправление на страницу администратора или получение страницы личного кабинета пользователя
      */
-    public String getMainPage(User user, Model model) {
-        if (user.getRoles().contains(Role.ADMIN)) {
+    public String getMainPage(AuthenticatedUser user, String ordersToken, Model model) {
+        if (user.hasRole(Role.ADMIN)) {
             return "redirect:/admin/main";
         }
         else {
-            if (user.getActivationCode() != null)
+            if (!user.isActivated())
                 model.addAttribute("notActivated", "Вы не активировали учётную запись," +
                         " в связи с этим, некоторые функции личного кабинета недоступны");
-            List<Order> userOrders = orderService.findAllByCustomerUsername(user.getUsername());
-            model.addAttribute("orders", userOrders);
+            KeysetPage<OrderRow> userOrders = orderService.findCustomerOrderRowsPage(user.getUsername(), ordersToken);
+            model.addAttribute("orders", userOrders.getItems());
+            model.addAttribute("nextOrdersToken", userOrders.getNextToken());
             model.addAttribute("user", user);
             return "mainUser";
         }
     }
 
     /**
-     * Сохранение нового пользователя
+     * Сохранение нового пользователя.
+     * Пароль кодируется до начала транзакции, чтобы соединение с бд не ждало bcrypt.
+     * Если данные заняли после проверки формы, занятые поля находятся запросом мимо фильтра
      *
      * @param user a {@link truckapp.model.User} object.
      */
@@ -125,29 +141,40 @@ public class AuthorizationService {
             pasteUserForm(user, model);
             return "registration";
         }
-        user.setRoles(Collections.singleton(Role.USER));
         user.setPassword(bCryptPasswordEncoder.encode(user.getPassword()));
-        user.setActivationCode(UUID.randomUUID().toString());
-        userRepository.save(user);
-        String message = String.format(
-                "Здравствуйте, %s \n" +
-                        "Пожалуйста, перейдите по следующей ссылке, чтобы активировать свою учётную запись: " +
-                        "http://localhost:8087/activate/%s",
-                user.getUsername(),
-                user.getActivationCode()
-        );
-        mailSender.send(user.getEmail(), "Активация учётной записи", message);
+        try {
+            registrationService.register(user);
+        }
+        catch (DataIntegrityViolationException e) {
+            int collisions = userRepository.findCollisions(user.getUsername(), user.getEmail(), user.getPhoneNumber());
+            if (collisions == 0)
+                bindingResult.rejectValue("username", "не удалось зарегистрироваться, попробуйте ещё раз");
+            authorizationValidator.rejectCollisions(collisions, bindingResult);
+            addErrors(bindingResult, model);
+            pasteUserForm(user, model);
+            return "registration";
+        }
+        finally {
+            userCache.invalidate(user);
+        }
+        userExistenceFilter.add(user);
         return "redirect:/main";
     }
 
     /**
      * обновление пароля
-     * @param user объект пользователя
+     * @param user объект пользователя, прочитанный из бд
+     * @param newPassword новый пароль
      * @return перенаправление на страницу личного кабинета
      */
-    public String updatePassword(User user) {
-        user.setPassword(bCryptPasswordEncoder.encode(user.getPassword()));
-        userRepository.save(user);
+    public String updatePassword(User user, String newPassword) {
+        try {
+            user.setPassword(bCryptPasswordEncoder.encode(newPassword));
+            userRepository.save(user);
+        }
+        finally {
+            userCache.invalidate(user);
+        }
         return "redirect:/main";
     }
 
@@ -155,43 +182,53 @@ public class AuthorizationService {
      * Поиск по никнейму пользователя
      *
      * @param username a {@link java.lang.String} object.
-     * @return a {@link truckapp.model.User} object.
+     * @return снимок пользователя из кэша
      */
-    public User findByUsername(String username) {
-        return userRepository.findByUsername(username);
+    public UserRow findByUsername(String username) {
+        return userCache.findByUsername(username);
     }
 
     /**
      * Поиск пользователя по адресу эл.почты
      *
      * @param email a {@link java.lang.String} object.
-     * @return a {@link truckapp.model.User} object.
+     * @return снимок пользователя из кэша
      */
-    public User findByEmail(String email) {
-        return userRepository.findByEmail(email);
+    public UserRow findByEmail(String email) {
+        return userCache.findByEmail(email);
     }
 
     /**
      * Посик пользователя по номеру телефона
      *
      * @param phoneNumber a {@link java.lang.String} object.
-     * @return a {@link truckapp.model.User} object.
+     * @return снимок пользователя из кэша
      */
-    public User findByPhoneNumber(String phoneNumber) {
-        return userRepository.findByPhoneNumber(phoneNumber);
+    public UserRow findByPhoneNumber(String phoneNumber) {
+        return userCache.findByPhoneNumber(phoneNumber);
     }
 
     /**
-     * Создание и сохранение cookie файлов
-     *
-     * @param httpServletResponse a {@link javax.servlet.http.HttpServletResponse} object.
+     * Поиск занятых никнейма, эл.почты и номера телефона из формы регистрации.
+     * Если фильтр занятых значений отвечает, что все значения свободны, бд не запрашивается
+     * @param userForm объект пользователя из формы
+     * @return результат {@link UserRepository#findCollisions}
      */
-    public void createCookie(HttpServletResponse httpServletResponse) {
-        User user = findByUsername(SecurityContextHolder.getContext().getAuthentication().getName());
-        Cookie usernameCookie = new Cookie("username", user.getUsername());
-        Cookie passwordCookie = new Cookie("password", user.getPassword());
-        httpServletResponse.addCookie(usernameCookie);
-        httpServletResponse.addCookie(passwordCookie);
+    public int findCollisions(User userForm) {
+        if (!userExistenceFilter.mightContainAny(userForm.getUsername(), userForm.getEmail(), userForm.getPhoneNumber()))
+            return 0;
+        return userRepository.findCollisions(userForm.getUsername(), userForm.getEmail(), userForm.getPhoneNumber());
+    }
+
+    /**
+     * Проверка, свободен ли никнейм, для подсказки при заполнении формы регистрации.
+     * Фильтр занятых значений здесь не используется: он не знает никнеймов, зарегистрированных
+     * другими экземплярами приложения, а подсказку, в отличие от сохранения, не страхует уникальный индекс
+     * @param username никнейм
+     * @return true, если никнейм свободен
+     */
+    public boolean isUsernameAvailable(String username) {
+        return !userRepository.existsByUsername(username);
     }
 
     /**
@@ -215,30 +252,39 @@ public class AuthorizationService {
     public boolean validateUserForm(User userForm, BindingResult bindingResult, Model model) {
         authorizationValidator.validate(userForm, bindingResult);
         if (bindingResult.hasErrors()) {
-            for (Object object : bindingResult.getAllErrors()) {
-                if (object instanceof FieldError) {
-                    FieldError fieldError = (FieldError) object;
-                    model.addAttribute(fieldError.getField(), fieldError.getCode());
-                }
-            }
+            addErrors(bindingResult, model);
             return true;
         }
         else
             return false;
     }
 
+    private static void addErrors(BindingResult bindingResult, Model model) {
+        for (Object object : bindingResult.getAllErrors()) {
+            if (object instanceof FieldError) {
+                FieldError fieldError = (FieldError) object;
+                model.addAttribute(fieldError.getField(), fieldError.getCode());
+            }
+        }
+    }
+
 
     /**
      * активация учётной записи пользователя
      * @param code код активации учётной записи
      * @return boolean
      */
+    @Transactional
     public boolean activateUser(String code) {
-        User user = userRepository.findByActivationCode(code);
+        Long userId = userTokenService.consume(code, UserToken.Type.ACTIVATION);
+        if (userId == null)
+            return false;
+        User user = userRepository.findById(userId).orElse(null);
         if (user == null)
             return false;
-        user.setActivationCode(null);
+        user.setActivated(true);
         userRepository.save(user);
+        userCache.invalidate(user);
         return true;
     }
 
@@ -247,10 +293,11 @@ public class AuthorizationService {
      * @param oldPassword старый пароль
      * @param newPassword новый пароь
      * @param model модель веб-страницы
+     * @param response ответ, в который записываются новые токены входа. Остальные постоянные входы пользователя отзываются
      * @return в случае ошибки возвращается страница смены пароля, при успешной смене пароля происходит перенаправление на страницу личного кабинета
      */
-    public String changingPassword(String oldPassword, String newPassword, Model model) {
-        User user = findByUsername(SecurityContextHolder.getContext().getAuthentication().getName());
+    public String changingPassword(String oldPassword, String newPassword, Model model, HttpServletResponse response) {
+        User user = userRepository.findByUsername(SecurityContextHolder.getContext().getAuthentication().getName());
         if (matches(oldPassword, user.getPassword())) {
             if (newPassword.length() > 5) {
                 if (oldPassword.equals(newPassword)) {
@@ -259,8 +306,10 @@ public class AuthorizationService {
                     return "/changePage";
                 }
                 else {
-                    user.setPassword(newPassword);
-                    updatePassword(user);
+                    updatePassword(user, newPassword);
+                    persistentLoginService.removeAll(user.getId());
+                    persistentLoginService.create(user.getId(), response);
+                    tokenService.issue(AuthenticatedUser.of(user), response);
                     return "redirect:/main";
                 }
             }
@@ -284,7 +333,8 @@ public class AuthorizationService {
      * @param model модель веб-страницы
      * @return страницу восстановления пароля или перенаправление на страницу авторизации
      */
-    public String forgetPasswordAction(User user, String email, Model model) {
+    @Transactional
+    public String forgetPasswordAction(AuthenticatedUser user, String email, Model model) {
         if (email.isEmpty()) {
             model.addAttribute("user", user);
             model.addAttribute("IncorrectData", "обязательно к заполнению");
@@ -301,24 +351,27 @@ public class AuthorizationService {
             model.addAttribute("IncorrectData", "пользователь с такой эл.почтой не зарегистрирован");
             return "forgetPassword";
         }
-        userFromDB.setResetPasswordToken(UUID.randomUUID().toString());
-        userRepository.save(userFromDB);
+        userTokenService.revoke(userFromDB.getId(), UserToken.Type.PASSWORD_RESET);
+        String resetPasswordToken = userTokenService.issue(userFromDB.getId(), UserToken.Type.PASSWORD_RESET);
         String message = "Здравствуйте, " + userFromDB.getUsername() + '\n' +
                 "Для смены пароля перейдите по ссылке: http://localhost:8087/resetPassword/" +
-                userFromDB.getResetPasswordToken();
+                resetPasswordToken;
         mailSender.send(userFromDB.getEmail(), "Восстановление пароля", message);
         return "redirect:/login";
     }
 
     /**
-     * Метод смены пароля, если пользователь забыл пароль
+     * Метод смены пароля, если пользователь забыл пароль.
+     * Погашение токена, запись пароля и отзыв постоянных входов выполняются в одной транзакции,
+     * поэтому при ошибке токен остаётся действительным. Пароль кодируется до начала транзакции,
+     * чтобы соединение с бд и строка токена не ждали bcrypt
      * @param user объект авторизированного пользователя
      * @param password новый пароль
      * @param token токен для смены пароля
      * @param model модель веб-страницы
      * @return страницу восстановления пароля или перенаправление на страницу авторизации
      */
-    public String resetPasswordAction(User user, String token, String password, Model model) {
+    public String resetPasswordAction(AuthenticatedUser user, String token, String password, Model model) {
         if (password.isEmpty()) {
             model.addAttribute("user", user);
             model.addAttribute("IncorrectData", "обязательно к заполнению");
@@ -329,15 +382,13 @@ public class AuthorizationService {
             model.addAttribute("IncorrectData", "пароль не должен быть короче 6 символов");
             return "resetPassword";
         }
-        User userFromDB = userRepository.findByResetPasswordToken(token);
+        User userFromDB = registrationService.resetPassword(token, bCryptPasswordEncoder.encode(password));
         if (userFromDB == null) {
             model.addAttribute("user", user);
             model.addAttribute("IncorrectData", "не удалось сменить пароль");
             return "resetPassword";
         }
-        userFromDB.setResetPasswordToken(null);
-        userFromDB.setPassword(password);
-        updatePassword(userFromDB);
+        userCache.invalidate(userFromDB);
         model.addAttribute("reset_password_success", "пароль успешно обновлён");
         return "redirect:/login";
     }
@@ -0,0 +1,292 @@
+package truckapp.services;
+
+import truckapp.diagnostics.ResourceAllocationEvent;
+import truckapp.model.Employee;
+import truckapp.model.Order;
+import truckapp.model.Truck;
+import truckapp.repositories.EmployeeRepository;
+import truckapp.repositories.OrderRepository;
+import truckapp.repositories.TruckRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import org.springframework.context.annotation.DependsOn;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Индекс занятости сотрудников и автомобилей по датам выполнения заказов.
+ * Для каждой даты хранятся битовые множества id занятых сотрудников и автомобилей,
+ * поэтому подбор свободных ресурсов сводится к операции AND-NOT без обхода заказов.
+ * Битовые множества не изменяются после публикации: каждое обновление создаёт копию.
+ * Индекс меняется только бронированиями этого экземпляра приложения, поэтому при нехватке ресурсов
+ * бронирование перечитывает из бд состав сотрудников и автомобилей и занятость на дату
+ * через {@link #reloadFleet()} и {@link #reload(LocalDate)}: другие экземпляры могли добавить ресурсы
+ * или освободить их удалением заказов.
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@Service
+@DependsOn("schemaMigrations")
+public class AvailabilityIndex {
+
+    private static final BitSet EMPTY = new BitSet();
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private TruckRepository truckRepository;
+
+    private final Map<LocalDate, BitSet> bookedEmployees = new ConcurrentHashMap<>();
+
+    private final Map<LocalDate, BitSet> bookedTrucks = new ConcurrentHashMap<>();
+
+    private final Map<String, BitSet> trucksByDescription = new ConcurrentHashMap<>();
+
+    private volatile BitSet employees = new BitSet();
+
+    /**
+     * Построение индекса по данным из бд при запуске приложения.
+     * Прошедшие даты не загружаются: бронировать на них нельзя
+     */
+    @PostConstruct
+    public void rebuild() {
+        LocalDate today = LocalDate.now();
+        reloadFleet();
+
+        bookedTrucks.clear();
+        for (Object[] row : orderRepository.findTargetDatesAndTruckIdsFrom(today))
+            set(bookedTrucks, (LocalDate) row[0], (Long) row[1], true);
+
+        bookedEmployees.clear();
+        for (Object[] row : orderRepository.findTargetDatesAndWorkerIdsFrom(today))
+            set(bookedEmployees, (LocalDate) row[0], (Long) row[1], true);
+    }
+
+    /**
+     * Перечитывание из бд всех сотрудников и автомобилей.
+     * Используется, когда ресурсов не хватило: их могли добавить на другом экземпляре приложения.
+     * Наборы заменяются целиком, поэтому параллельный подбор видит либо старый, либо новый состав
+     */
+    public void reloadFleet() {
+        BitSet allEmployees = new BitSet();
+        for (Long id : employeeRepository.findAllIds())
+            allEmployees.set(toIndex(id));
+        synchronized (this) {
+            employees = allEmployees;
+        }
+
+        Map<String, BitSet> trucks = new HashMap<>();
+        for (Object[] row : truckRepository.findAllDescriptionsAndIds()) {
+            if (row[0] != null && row[1] != null)
+                trucks.computeIfAbsent((String) row[0], description -> new BitSet()).set(toIndex((Long) row[1]));
+        }
+        trucksByDescription.putAll(trucks);
+        trucksByDescription.keySet().retainAll(trucks.keySet());
+    }
+
+    /**
+     * Перечитывание из бд занятости на указанную дату.
+     * Используется, когда бронирование проиграло гонку другому экземпляру приложения
+     * или ресурсов не хватило: заказы могли удалить на другом экземпляре
+     * @param targetDate дата выполнения заказа
+     */
+    public void reload(LocalDate targetDate) {
+        if (targetDate == null)
+            return;
+        bookedTrucks.put(targetDate, toBitSet(orderRepository.findTruckIdsByTargetDate(targetDate)));
+        bookedEmployees.put(targetDate, toBitSet(orderRepository.findWorkerIdsByTargetDate(targetDate)));
+    }
+
+    /**
+     * Подбор свободных на указанную дату сотрудников
+     * @param targetDate дата выполнения заказа
+     * @param count требуемое количество сотрудников
+     * @return список id свободных сотрудников, не длиннее count
+     */
+    public List<Long> findFreeEmployees(LocalDate targetDate, int count) {
+        return findFreeEmployees(targetDate, count, Reservation.NONE);
+    }
+
+    /**
+     * Подбор свободных на указанную дату сотрудников, не выбранных для других заказов пачки
+     * @param targetDate дата выполнения заказа
+     * @param count требуемое количество сотрудников
+     * @param reservation ресурсы, уже выбранные для пачки заказов
+     * @return список id свободных сотрудников, не длиннее count
+     */
+    public List<Long> findFreeEmployees(LocalDate targetDate, int count, Reservation reservation) {
+        ResourceAllocationEvent event = new ResourceAllocationEvent();
+        event.begin();
+        BitSet candidates = employees;
+        BitSet free = (BitSet) candidates.clone();
+        free.andNot(get(bookedEmployees, targetDate));
+        free.andNot(get(reservation.employees, targetDate));
+        List<Long> ids = new ArrayList<>();
+        for (int i = free.nextSetBit(0); i >= 0 && ids.size() < count; i = free.nextSetBit(i + 1))
+            ids.add((long) i);
+        if (event.shouldCommit())
+            commit(event, ResourceAllocationEvent.EMPLOYEE, targetDate, candidates, free, count, ids.size());
+        return ids;
+    }
+
+    /**
+     * Подбор свободного на указанную дату автомобиля
+     * @param targetDate дата выполнения заказа
+     * @param description характеристика грузовика
+     * @return id свободного автомобиля или null, если свободных нет
+     */
+    public Long findFreeTruck(LocalDate targetDate, String description) {
+        return findFreeTruck(targetDate, description, Reservation.NONE);
+    }
+
+    /**
+     * Подбор свободного на указанную дату автомобиля, не выбранного для других заказов пачки
+     * @param targetDate дата выполнения заказа
+     * @param description характеристика грузовика
+     * @param reservation ресурсы, уже выбранные для пачки заказов
+     * @return id свободного автомобиля или null, если свободных нет
+     */
+    public Long findFreeTruck(LocalDate targetDate, String description, Reservation reservation) {
+        ResourceAllocationEvent event = new ResourceAllocationEvent();
+        event.begin();
+        BitSet candidates = get(trucksByDescription, description);
+        BitSet free = (BitSet) candidates.clone();
+        free.andNot(get(bookedTrucks, targetDate));
+        free.andNot(get(reservation.trucks, targetDate));
+        int i = free.nextSetBit(0);
+        if (event.shouldCommit())
+            commit(event, ResourceAllocationEvent.TRUCK, targetDate, candidates, free, 1, i < 0 ? 0 : 1);
+        return i < 0 ? null : (long) i;
+    }
+
+    /**
+     * Отметка сотрудников и автомобиля заказа как занятых на дату заказа
+     * @param order сохранённый объект заказа
+     */
+    public void book(Order order) {
+        mark(order, true);
+    }
+
+    /**
+     * Освобождение сотрудников и автомобиля удалённого заказа
+     * @param order удалённый объект заказа
+     */
+    public void release(Order order) {
+        mark(order, false);
+    }
+
+    /**
+     * Удаление из индекса всех дат раньше указанной
+     * @param targetDate дата, с которой занятость сохраняется
+     */
+    public void evictBefore(LocalDate targetDate) {
+        bookedEmployees.keySet().removeIf(date -> date.isBefore(targetDate));
+        bookedTrucks.keySet().removeIf(date -> date.isBefore(targetDate));
+    }
+
+    /**
+     * Добавление нового сотрудника в индекс
+     * @param employee сохранённый объект сотрудника
+     */
+    public synchronized void addEmployee(Employee employee) {
+        BitSet updated = (BitSet) employees.clone();
+        updated.set(toIndex(employee.getId()));
+        employees = updated;
+    }
+
+    /**
+     * Добавление нового автомобиля в индекс
+     * @param truck сохранённый объект автомобиля
+     */
+    public void addTruck(Truck truck) {
+        set(trucksByDescription, truck.getDescription(), truck.getId(), true);
+    }
+
+    private void mark(Order order, boolean booked) {
+        if (order.getTargetDate() == null)
+            return;
+        if (order.getTruck() != null)
+            set(bookedTrucks, order.getTargetDate(), order.getTruck().getId(), booked);
+        if (order.getWorkers() != null) {
+            for (Employee worker : order.getWorkers())
+                set(bookedEmployees, order.getTargetDate(), worker.getId(), booked);
+        }
+    }
+
+    private static void commit(ResourceAllocationEvent event, String resource, LocalDate targetDate,
+                               BitSet candidates, BitSet free, int requested, int selected) {
+        event.resource = resource;
+        event.targetDate = String.valueOf(targetDate);
+        event.candidates = candidates.cardinality();
+        event.free = free.cardinality();
+        event.requested = requested;
+        event.selected = selected;
+        event.commit();
+    }
+
+    private static <K> BitSet get(Map<K, BitSet> map, K key) {
+        if (key == null)
+            return EMPTY;
+        return map.getOrDefault(key, EMPTY);
+    }
+
+    private static <K> void set(Map<K, BitSet> map, K key, Long id, boolean value) {
+        if (key == null || id == null)
+            return;
+        map.compute(key, (k, current) -> {
+            BitSet updated = current == null ? new BitSet() : (BitSet) current.clone();
+            updated.set(toIndex(id), value);
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+
+    private static BitSet toBitSet(List<Long> ids) {
+        BitSet bitSet = new BitSet();
+        for (Long id : ids)
+            bitSet.set(toIndex(id));
+        return bitSet;
+    }
+
+    private static int toIndex(Long id) {
+        return Math.toIntExact(id);
+    }
+
+    /**
+     * Ресурсы, выбранные для ещё не сохранённой пачки заказов.
+     * Используется одним потоком под блокировками всех дат пачки
+     */
+    public static final class Reservation {
+
+        private static final Reservation NONE = new Reservation();
+
+        private final Map<LocalDate, BitSet> employees = new HashMap<>();
+
+        private final Map<LocalDate, BitSet> trucks = new HashMap<>();
+
+        /**
+         * Отметка ресурсов как выбранных на дату
+         * @param targetDate дата выполнения заказа
+         * @param truckId id автомобиля
+         * @param employeeIds id сотрудников
+         */
+        public void add(LocalDate targetDate, Long truckId, List<Long> employeeIds) {
+            trucks.computeIfAbsent(targetDate, date -> new BitSet()).set(toIndex(truckId));
+            BitSet dateEmployees = employees.computeIfAbsent(targetDate, date -> new BitSet());
+            for (Long id : employeeIds)
+                dateEmployees.set(toIndex(id));
+        }
+    }
+}
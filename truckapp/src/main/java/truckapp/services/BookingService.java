@@ -0,0 +1,317 @@
+package truckapp.services;
+
+import truckapp.diagnostics.OrderBookingEvent;
+import truckapp.dto.BulkOrderResult;
+import truckapp.dto.OrderRequest;
+import truckapp.metrics.Timed;
+import truckapp.model.Employee;
+import truckapp.model.Order;
+import truckapp.model.Truck;
+import truckapp.repositories.EmployeeRepository;
+import truckapp.repositories.TruckRepository;
+import truckapp.validators.OrderValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.ui.Model;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Сервис бронирования сотрудников и автомобиля под новый заказ.
+ * Подбор и сохранение заказа на одну дату выполняются под блокировкой полосы,
+ * выбранной по дате, поэтому заказы на разные даты не ждут друг друга.
+ * Между экземплярами приложения согласованность обеспечивают ограничения уникальности в бд:
+ * при проигранной гонке занятость на дату перечитывается и подбор повторяется один раз.
+ * Индекс занятости не видит изменений других экземпляров, поэтому перед отказом из-за нехватки ресурсов
+ * состав сотрудников и автомобилей и занятость на дату перечитываются из бд и подбор повторяется.
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@Service
+public class BookingService {
+
+    private static final int STRIPES = 64;
+
+    private static final int MAX_RETRIES = 1;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private TruckService truckService;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private OrderValidator orderValidator;
+
+    @Autowired
+    private TruckRepository truckRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    /**
+     * пустой конструктор
+     */
+    public BookingService() {
+        for (int i = 0; i < STRIPES; i++)
+            locks[i] = new ReentrantLock();
+    }
+
+    /**
+     * Подбор свободных сотрудников и автомобиля, проверка формы и сохранение заказа
+     * @param orderForm объект заказа
+     * @param truckDescription характеристика требуемого грузовика
+     * @param numberOfWorkers количество требующихся сотрудников
+     * @param bindingResult лист ошибок
+     * @param model модель веб-страницы
+     * @return true, если заказ сохранён, false, если форма содержит ошибки или ресурсы закончились
+     */
+    @Timed(value = "truckapp_booking", help = "Single order bookings")
+    public boolean bookOrder(Order orderForm, String truckDescription, int numberOfWorkers,
+                             BindingResult bindingResult, Model model) {
+        OrderBookingEvent event = new OrderBookingEvent();
+        event.begin();
+        event.targetDate = String.valueOf(orderForm.getTargetDate());
+        event.truckDescription = truckDescription;
+        event.requestedWorkers = numberOfWorkers;
+        ReentrantLock lock = lockFor(orderForm.getTargetDate());
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            event.lockWait = System.nanoTime() - start;
+            boolean reloaded = false;
+            for (int attempt = 0; ; attempt++) {
+                event.attempts = attempt + 1;
+                start = System.nanoTime();
+                List<Employee> workersBuf = employeeService.setWorkersToOrder(orderForm, numberOfWorkers);
+                Truck truck = truckService.setTruckToOrder(orderForm, truckDescription);
+                if (!reloaded && (workersBuf.size() < numberOfWorkers || truck == null)) {
+                    reloaded = true;
+                    availabilityIndex.reloadFleet();
+                    availabilityIndex.reload(orderForm.getTargetDate());
+                    workersBuf = employeeService.setWorkersToOrder(orderForm, numberOfWorkers);
+                    truck = truckService.setTruckToOrder(orderForm, truckDescription);
+                }
+                event.allocation += System.nanoTime() - start;
+                event.foundWorkers = workersBuf.size();
+                event.truckFound = truck != null;
+                start = System.nanoTime();
+                boolean invalid = orderService.validateOrderForm(orderForm, workersBuf, numberOfWorkers, truck,
+                        bindingResult, model);
+                event.validation += System.nanoTime() - start;
+                if (invalid) {
+                    event.outcome = "rejected";
+                    return false;
+                }
+                orderForm.setTruck(truck);
+                orderForm.setWorkers(workersBuf);
+                start = System.nanoTime();
+                try {
+                    orderService.save(orderForm);
+                    event.outcome = "booked";
+                    return true;
+                }
+                catch (DataIntegrityViolationException e) {
+                    entityManager.clear();
+                    orderForm.setId(null);
+                    availabilityIndex.reload(orderForm.getTargetDate());
+                    if (attempt >= MAX_RETRIES) {
+                        event.outcome = "conflict";
+                        bindingResult.rejectValue("truck", "Выбранные ресурсы только что заняли, попробуйте ещё раз");
+                        model.addAttribute("truck", "Выбранные ресурсы только что заняли, попробуйте ещё раз");
+                        return false;
+                    }
+                }
+                finally {
+                    event.persist += System.nanoTime() - start;
+                }
+            }
+        }
+        finally {
+            lock.unlock();
+            event.commit();
+        }
+    }
+
+    /**
+     * Пакетное оформление заказов одного заказчика.
+     * Блокировки полос всех дат пачки берутся в порядке номеров полос, поэтому пачки с пересекающимися
+     * датами не могут заблокировать друг друга. Ресурсы подбираются за один проход по индексу занятости:
+     * выбранные для предыдущих заказов пачки исключаются из подбора следующих, а объекты автомобилей
+     * и сотрудников загружаются двумя запросами на всю пачку. При нехватке ресурсов на дату её занятость
+     * перечитывается из бд один раз за пачку, а состав сотрудников и автомобилей - один раз на всю пачку. Заказы без ошибок сохраняются одной транзакцией;
+     * при проигранной гонке занятость на даты пачки перечитывается и подбор повторяется один раз
+     *
+     * @param customerUsername никнейм заказчика
+     * @param requests поля заказов
+     * @return результаты в порядке заказов пачки
+     */
+    @Timed(value = "truckapp_booking_bulk", help = "Bulk order bookings")
+    public List<BulkOrderResult> bookOrders(String customerUsername, List<OrderRequest> requests) {
+        List<ReentrantLock> batchLocks = locksFor(requests);
+        batchLocks.forEach(ReentrantLock::lock);
+        try {
+            for (int attempt = 0; ; attempt++) {
+                List<Order> orders = new ArrayList<>(requests.size());
+                List<BindingResult> bindingResults = new ArrayList<>(requests.size());
+                List<Order> booked = allocate(customerUsername, requests, orders, bindingResults);
+                try {
+                    orderService.saveAll(booked);
+                    return results(orders, bindingResults);
+                }
+                catch (DataIntegrityViolationException e) {
+                    entityManager.clear();
+                    Set<LocalDate> dates = new HashSet<>();
+                    for (Order order : booked)
+                        dates.add(order.getTargetDate());
+                    dates.forEach(availabilityIndex::reload);
+                    if (attempt >= MAX_RETRIES) {
+                        for (int i = 0; i < orders.size(); i++) {
+                            if (bindingResults.get(i).hasErrors())
+                                continue;
+                            orders.get(i).setId(null);
+                            bindingResults.get(i).rejectValue("truck",
+                                    "Выбранные ресурсы только что заняли, попробуйте ещё раз");
+                        }
+                        return results(orders, bindingResults);
+                    }
+                }
+            }
+        }
+        finally {
+            for (int i = batchLocks.size() - 1; i >= 0; i--)
+                batchLocks.get(i).unlock();
+        }
+    }
+
+    /**
+     * Проверка заказов пачки и подбор для них ресурсов
+     * @param customerUsername никнейм заказчика
+     * @param requests поля заказов
+     * @param orders список, в который добавляются все заказы пачки
+     * @param bindingResults список, в который добавляются листы ошибок заказов
+     * @return заказы без ошибок с назначенными автомобилем и сотрудниками
+     */
+    private List<Order> allocate(String customerUsername, List<OrderRequest> requests,
+                                 List<Order> orders, List<BindingResult> bindingResults) {
+        Date creationDate = new Date();
+        AvailabilityIndex.Reservation reservation = new AvailabilityIndex.Reservation();
+        List<Order> booked = new ArrayList<>();
+        Map<Order, Long> truckIds = new HashMap<>();
+        Map<Order, List<Long>> workerIds = new HashMap<>();
+        Set<LocalDate> reloadedDates = new HashSet<>();
+        boolean fleetReloaded = false;
+        for (OrderRequest request : requests) {
+            Order order = request.toOrder();
+            order.setCustomerUsername(customerUsername);
+            order.setCreationDate(creationDate);
+            BindingResult bindingResult = new BeanPropertyBindingResult(order, "orderForm");
+            orders.add(order);
+            bindingResults.add(bindingResult);
+            orderValidator.validateFields(order, request.getNumberOfWorkers(), bindingResult);
+            if (bindingResult.hasErrors())
+                continue;
+            Long truckId = availabilityIndex.findFreeTruck(order.getTargetDate(), request.getTruckDescription(),
+                    reservation);
+            List<Long> employeeIds = availabilityIndex.findFreeEmployees(order.getTargetDate(),
+                    request.getNumberOfWorkers(), reservation);
+            if ((truckId == null || employeeIds.size() < request.getNumberOfWorkers())
+                    && reloadedDates.add(order.getTargetDate())) {
+                if (!fleetReloaded) {
+                    fleetReloaded = true;
+                    availabilityIndex.reloadFleet();
+                }
+                availabilityIndex.reload(order.getTargetDate());
+                truckId = availabilityIndex.findFreeTruck(order.getTargetDate(), request.getTruckDescription(),
+                        reservation);
+                employeeIds = availabilityIndex.findFreeEmployees(order.getTargetDate(),
+                        request.getNumberOfWorkers(), reservation);
+            }
+            orderValidator.validateResources(request.getNumberOfWorkers(), employeeIds.size(), truckId != null,
+                    bindingResult);
+            if (bindingResult.hasErrors())
+                continue;
+            reservation.add(order.getTargetDate(), truckId, employeeIds);
+            truckIds.put(order, truckId);
+            workerIds.put(order, employeeIds);
+            booked.add(order);
+        }
+        if (booked.isEmpty())
+            return booked;
+
+        Map<Long, Truck> trucks = new HashMap<>();
+        for (Truck truck : truckRepository.findAllById(new HashSet<>(truckIds.values())))
+            trucks.put(truck.getId(), truck);
+        Set<Long> allWorkerIds = new HashSet<>();
+        workerIds.values().forEach(allWorkerIds::addAll);
+        Map<Long, Employee> employees = new HashMap<>();
+        for (Employee employee : employeeRepository.findAllById(allWorkerIds))
+            employees.put(employee.getId(), employee);
+        for (Order order : booked) {
+            order.setTruck(trucks.get(truckIds.get(order)));
+            List<Employee> workers = new ArrayList<>();
+            for (Long id : workerIds.get(order))
+                workers.add(employees.get(id));
+            order.setWorkers(workers);
+        }
+        return booked;
+    }
+
+    private static List<BulkOrderResult> results(List<Order> orders, List<BindingResult> bindingResults) {
+        List<BulkOrderResult> results = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            Map<String, String> errors = new LinkedHashMap<>();
+            for (FieldError fieldError : bindingResults.get(i).getFieldErrors())
+                errors.putIfAbsent(fieldError.getField(), fieldError.getCode());
+            results.add(new BulkOrderResult(errors.isEmpty() ? orders.get(i).getId() : null, errors));
+        }
+        return results;
+    }
+
+    private List<ReentrantLock> locksFor(List<OrderRequest> requests) {
+        Set<Integer> stripes = new TreeSet<>();
+        for (OrderRequest request : requests)
+            stripes.add(stripeOf(request.getTargetDate()));
+        List<ReentrantLock> batchLocks = new ArrayList<>(stripes.size());
+        for (int stripe : stripes)
+            batchLocks.add(locks[stripe]);
+        return batchLocks;
+    }
+
+    private ReentrantLock lockFor(LocalDate targetDate) {
+        return locks[stripeOf(targetDate)];
+    }
+
+    private static int stripeOf(LocalDate targetDate) {
+        int hash = targetDate == null ? 0 : targetDate.hashCode();
+        return (hash & Integer.MAX_VALUE) % STRIPES;
+    }
+}
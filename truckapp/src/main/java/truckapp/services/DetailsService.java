@@ -1,7 +1,10 @@
 package truckapp.services;
 
+import truckapp.model.AuthenticatedUser;
+import truckapp.model.User;
 import truckapp.repositories.UserRepository;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -13,26 +16,56 @@ import org.springframework.stereotype.Service;
  * @version 0.2
  */
 @Service
-public class DetailsService implements UserDetailsService {
+public class DetailsService implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
 
+    private final UserCache userCache;
+
     /**
      * параметризованный конструктор
      * @param userRepository репозиторий для работы с таблицей пользователей
+     * @param userCache кэш пользователей
      */
-    public DetailsService(UserRepository userRepository) {
+    public DetailsService(UserRepository userRepository, UserCache userCache) {
         this.userRepository = userRepository;
+        this.userCache = userCache;
     }
 
     /**
-     * метод поиска пользователя в таблице по введённому имени  в форме авторизации
+     * метод поиска пользователя в таблице по введённому имени  в форме авторизации.
+     * Пользователь читается из бд, а не из кэша, чтобы вход проверялся по текущему хешу пароля
+     * и признакам пользователя, даже если их изменил другой экземпляр приложения
      *
      * @param s имя пользователя
-     * @return объект пользователя
+     * @return пользователь для контекста безопасности с хешем пароля
      * @throws UsernameNotFoundException
      */
     @Override
     public UserDetails loadUserByUsername(String s) throws UsernameNotFoundException {
-        return userRepository.findByUsername(s);
+        User user = userRepository.findByUsername(s);
+        if (user == null)
+            throw new UsernameNotFoundException(s);
+        return AuthenticatedUser.withPassword(user);
+    }
+
+    /**
+     * Сохранение пересчитанного хеша пароля после успешного входа,
+     * если хеш был получен с другой стоимостью bcrypt
+     *
+     * @param userDetails пользователь из контекста безопасности
+     * @param newPassword новый хеш пароля
+     * @return пользователь для контекста безопасности с новым хешем
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findById(((AuthenticatedUser) userDetails).getId())
+                .orElseThrow(() -> new UsernameNotFoundException(userDetails.getUsername()));
+        user.setPassword(newPassword);
+        try {
+            return AuthenticatedUser.withPassword(userRepository.save(user));
+        }
+        finally {
+            userCache.invalidate(user);
+        }
     }
 }
@@ -1,18 +1,29 @@
 package truckapp.services;
 
+import truckapp.dto.EmployeeRow;
+import truckapp.dto.KeysetPage;
+import truckapp.dto.PageToken;
+import truckapp.metrics.Timed;
 import truckapp.model.Employee;
 import truckapp.model.Order;
 import truckapp.model.Truck;
 import truckapp.repositories.EmployeeRepository;
 import truckapp.validators.EmployeeValidator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Сервис, осуществляющий работу с таблицей работников компании
@@ -29,6 +40,12 @@ public class EmployeeService {
     @Autowired
     private EmployeeValidator employeeValidator;
 
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Value("${truckapp.page-size}")
+    private int pageSize;
+
     /**
      * получение всех работников из таблицы
      * @return лист работников
@@ -37,12 +54,44 @@ public class EmployeeService {
         return employeeRepository.findAll();
     }
 
+    /**
+     * получение страницы сотрудников, отсортированных по имени
+     * @param token токен страницы, для первой страницы - null
+     * @return страница строк сотрудников
+     */
+    public KeysetPage<EmployeeRow> findEmployeeRowsPage(String token) {
+        PageToken pageToken = PageToken.parse(token);
+        List<EmployeeRow> rows = employeeRepository.findEmployeeRowsAfter(pageToken.getKey(), pageToken.getId(),
+                PageRequest.of(0, pageSize + 1));
+        return KeysetPage.of(rows, pageSize, row -> new PageToken(row.getName(), row.getId()));
+    }
+
+    /**
+     * Построчная обработка сотрудников, читаемых курсором бд в одной транзакции
+     * @param consumer обработчик строки
+     */
+    @Transactional(readOnly = true)
+    public void forEachEmployeeRow(Consumer<EmployeeRow> consumer) {
+        try (Stream<EmployeeRow> rows = employeeRepository.streamEmployeeRows()) {
+            rows.forEach(consumer);
+        }
+    }
+
+    /**
+     * Получение версии списка сотрудников для заголовка ETag
+     * @return строка версии
+     */
+    public String findVersion() {
+        return employeeRepository.findVersion();
+    }
+
     /**
      * добавление нового сотрудника
      * @param employee объект сотрудника
      */
     public void save(Employee employee) {
         employeeRepository.save(employee);
+        availabilityIndex.addEmployee(employee);
     }
 
     /**
@@ -55,12 +104,26 @@ public class EmployeeService {
     }
 
     /**
-     * получение списка сотрудников по подстроке их имени или фамилии
+     * поиск сотрудников по подстроке их имени или фамилии, упорядоченных по похожести имени
      * @param employee подстрока имени или фамилии
-     * @return список сотрудников
+     * @param page номер страницы, начиная с 0. Отрицательный номер считается первой страницей
+     * @return страница строк сотрудников, токен следующей страницы - её номер
      */
-    public List<Employee> searchEmployee(String employee) {
-        return employeeRepository.findByNameContainingIgnoreCase(employee);
+    public KeysetPage<EmployeeRow> searchEmployeeRows(String employee, int page) {
+        page = Math.max(page, 0);
+        List<Long> ids = OrderService.toLongs(employeeRepository.searchIdsByName(OrderService.escapeLike(employee),
+                employee, pageSize + 1, OrderService.offset(page, pageSize)));
+        List<EmployeeRow> rows = new ArrayList<>();
+        if (!ids.isEmpty()) {
+            Map<Long, EmployeeRow> rowsById = new HashMap<>();
+            for (EmployeeRow row : employeeRepository.findEmployeeRowsByIds(ids))
+                rowsById.put(row.getId(), row);
+            for (Long id : ids)
+                rows.add(rowsById.get(id));
+        }
+        if (rows.size() <= pageSize)
+            return new KeysetPage<>(rows, null);
+        return new KeysetPage<>(rows.subList(0, pageSize), String.valueOf(page + 1));
     }
 
     /**
@@ -80,26 +143,17 @@ public class EmployeeService {
      * Установка работников на заказ с учётом занятости
      *
      * @param orderForm объект заказа
-     * @param workers список всех работников, из которого будут отбираться подходящие
-     * @return
+     * @param numberOfWorkers количество требующихся работников
+     * @return список свободных на дату заказа работников, не длиннее numberOfWorkers.
+     * Сотрудники читаются по одному через кэш второго уровня, а не одним запросом по списку id
      */
-    public List<Employee> setWorkersToOrder(Order orderForm, List<Employee> workers) {
-        List<Employee> workersBuf = new ArrayList<>();
-        boolean flag;
-        for (Employee worker : workers) {
-            flag = true;
-            if (worker.getOrders().isEmpty())
-                workersBuf.add(worker);
-            else {
-                for (Order order : worker.getOrders()) {
-                    if (order.getTargetDate().equals(orderForm.getTargetDate()))
-                        flag = false;
-                }
-                if (flag)
-                    workersBuf.add(worker);
-            }
-        }
-        return workersBuf;
+    @Timed(value = "truckapp_employee_allocation", help = "Picking free employees for an order")
+    public List<Employee> setWorkersToOrder(Order orderForm, int numberOfWorkers) {
+        List<Long> ids = availabilityIndex.findFreeEmployees(orderForm.getTargetDate(), numberOfWorkers);
+        List<Employee> workers = new ArrayList<>(ids.size());
+        for (Long id : ids)
+            employeeRepository.findById(id).ifPresent(workers::add);
+        return workers;
     }
 
     /**
@@ -0,0 +1,162 @@
+package truckapp.services;
+
+import truckapp.metrics.Timed;
+import truckapp.model.OutboxMail;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фоновая отправка писем из очереди mail_outbox8.
+ * Выбранная пачка делится между ограниченным числом потоков,
+ * каждый поток отправляет свою часть через одно соединение с почтовым сервером
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@Service
+public class MailDispatcher {
+
+    @Autowired
+    private MailSender mailSender;
+
+    @Autowired
+    private JavaMailSender javaMailSender;
+
+    @Value("${spring.mail.username}")
+    private String username;
+
+    @Value("${truckapp.mail.batch-size}")
+    private int batchSize;
+
+    @Value("${truckapp.mail.concurrency}")
+    private int concurrency;
+
+    private ExecutorService executor;
+
+    /**
+     * Создание пула потоков отправки
+     */
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(concurrency), new CustomizableThreadFactory("mail-dispatcher-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Остановка пула потоков отправки. Неотправленные письма останутся в очереди
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Отправка писем, время отправки которых наступило, пока очередь не опустеет
+     */
+    @Timed(value = "truckapp_mail_dispatch", help = "Outbox polls with sending")
+    @Scheduled(fixedDelayString = "${truckapp.mail.poll-ms}")
+    public void dispatch() {
+        List<OutboxMail> mails;
+        do {
+            mails = mailSender.claim(batchSize);
+            if (!mails.isEmpty() && !sendAll(mails))
+                return;
+        } while (mails.size() == batchSize);
+    }
+
+    /**
+     * Параллельная отправка пачки писем и запись результатов
+     * @param mails пачка писем
+     * @return false, если поток был прерван
+     */
+    private boolean sendAll(List<OutboxMail> mails) {
+        int chunkSize = (mails.size() + concurrency - 1) / concurrency;
+        List<Future<Map<Long, String>>> futures = new ArrayList<>();
+        for (int from = 0; from < mails.size(); from += chunkSize) {
+            List<OutboxMail> chunk = mails.subList(from, Math.min(from + chunkSize, mails.size()));
+            futures.add(executor.submit(() -> sendChunk(chunk)));
+        }
+        Map<Long, String> failures = new HashMap<>();
+        try {
+            for (Future<Map<Long, String>> future : futures)
+                failures.putAll(future.get());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        List<Long> sentIds = new ArrayList<>();
+        for (OutboxMail mail : mails) {
+            if (!failures.containsKey(mail.getId()))
+                sentIds.add(mail.getId());
+        }
+        mailSender.complete(sentIds, failures);
+        return true;
+    }
+
+    /**
+     * Отправка части пачки через одно соединение
+     * @param mails письма
+     * @return тексты ошибок по id неотправленных писем
+     */
+    private Map<Long, String> sendChunk(List<OutboxMail> mails) {
+        Map<SimpleMailMessage, Long> ids = new IdentityHashMap<>();
+        SimpleMailMessage[] messages = new SimpleMailMessage[mails.size()];
+        for (int i = 0; i < messages.length; i++) {
+            OutboxMail mail = mails.get(i);
+            messages[i] = new SimpleMailMessage();
+            messages[i].setFrom(username);
+            messages[i].setTo(mail.getRecipient());
+            messages[i].setSubject(mail.getSubject());
+            messages[i].setText(mail.getBody());
+            ids.put(messages[i], mail.getId());
+        }
+        try {
+            javaMailSender.send(messages);
+            return Collections.emptyMap();
+        }
+        catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty())
+                return failAll(mails, e);
+            Map<Long, String> failures = new HashMap<>();
+            for (Map.Entry<Object, Exception> failed : e.getFailedMessages().entrySet())
+                failures.put(ids.get(failed.getKey()), String.valueOf(failed.getValue().getMessage()));
+            return failures;
+        }
+        catch (RuntimeException e) {
+            return failAll(mails, e);
+        }
+    }
+
+    private static Map<Long, String> failAll(List<OutboxMail> mails, Exception e) {
+        Map<Long, String> failures = new HashMap<>();
+        for (OutboxMail mail : mails)
+            failures.put(mail.getId(), String.valueOf(e.getMessage()));
+        return failures;
+    }
+}
@@ -1,35 +1,103 @@
 package truckapp.services;
 
+import truckapp.metrics.Timed;
+import truckapp.model.OutboxMail;
+import truckapp.repositories.OutboxMailRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
- * Класс, отвечающий ха рассылку сообщений по эл.почте
+ * Класс, отвечающий ха рассылку сообщений по эл.почте.
+ * Письма ставятся в очередь mail_outbox8 в транзакции вызывающего метода
+ * и отправляются {@link MailDispatcher}, поэтому запрос не ждёт почтовый сервер
  */
 @Service
 public class MailSender {
 
+    private static final Logger log = LoggerFactory.getLogger(MailSender.class);
+
     @Autowired
-    private JavaMailSender mailSender;
+    private OutboxMailRepository outboxMailRepository;
+
+    @Value("${truckapp.mail.lease-ms}")
+    private long leaseMillis;
+
+    @Value("${truckapp.mail.max-attempts}")
+    private int maxAttempts;
 
-    @Value("${spring.mail.username}")
-    private String username;
+    @Value("${truckapp.mail.retry-base-ms}")
+    private long retryBaseMillis;
+
+    @Value("${truckapp.mail.retry-max-ms}")
+    private long retryMaxMillis;
 
     /**
-     * метод отправки сообщения
+     * метод постановки сообщения в очередь на отправку.
+     * Письмо будет отправлено, только если транзакция вызывающего метода зафиксируется
      * @param mailTo адрес эл.почты получателя
      * @param subject тема письма
      * @param message текст сообщения
      */
+    @Timed(value = "truckapp_mail_send", help = "Mails queued for sending")
+    @Transactional(propagation = Propagation.MANDATORY)
     public void send(String mailTo, String subject, String message) {
-        SimpleMailMessage mailMessage = new SimpleMailMessage();
-        mailMessage.setFrom(username);
-        mailMessage.setTo(mailTo);
-        mailMessage.setSubject(subject);
-        mailMessage.setText(message);
-        mailSender.send(mailMessage);
+        outboxMailRepository.save(new OutboxMail(mailTo, subject, message));
+    }
+
+    /**
+     * Выборка писем для отправки. Время следующей попытки сдвигается на срок аренды,
+     * чтобы письмо не взял другой экземпляр приложения, пока идёт отправка
+     * @param batchSize максимальное количество писем
+     * @return список писем
+     */
+    @Transactional
+    public List<OutboxMail> claim(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxMail> mails = outboxMailRepository.lockDue(now, batchSize);
+        for (OutboxMail mail : mails)
+            mail.setNextAttemptAt(now.plus(leaseMillis, ChronoUnit.MILLIS));
+        return mails;
+    }
+
+    /**
+     * Запись результатов отправки: отправленные письма удаляются,
+     * неотправленные откладываются с экспоненциальной задержкой,
+     * а после исчерпания попыток помечаются как DEAD
+     * @param sentIds id отправленных писем
+     * @param failures тексты ошибок по id неотправленных писем
+     */
+    @Transactional
+    public void complete(Collection<Long> sentIds, Map<Long, String> failures) {
+        if (!sentIds.isEmpty())
+            outboxMailRepository.deleteAllByIds(sentIds);
+        if (failures.isEmpty())
+            return;
+        LocalDateTime now = LocalDateTime.now();
+        for (OutboxMail mail : outboxMailRepository.findAllById(failures.keySet())) {
+            int attempts = mail.getAttempts() + 1;
+            String error = failures.get(mail.getId());
+            mail.setAttempts(attempts);
+            mail.setLastError(error == null || error.length() <= 1000 ? error : error.substring(0, 1000));
+            if (attempts >= maxAttempts) {
+                mail.setStatus(OutboxMail.Status.DEAD);
+                log.warn("Mail {} to {} moved to dead letters after {} attempts: {}",
+                        mail.getId(), mail.getRecipient(), attempts, error);
+            }
+            else {
+                long delay = Math.min(retryMaxMillis, retryBaseMillis << Math.min(attempts - 1, 20));
+                mail.setNextAttemptAt(now.plus(delay, ChronoUnit.MILLIS));
+            }
+        }
     }
 }
@@ -1,17 +1,36 @@
 package truckapp.services;
 
+import truckapp.dto.KeysetPage;
+import truckapp.dto.OrderRow;
+import truckapp.dto.PageToken;
+import truckapp.dto.UserRow;
+import truckapp.metrics.Timed;
 import truckapp.model.Employee;
+import truckapp.model.EmployeeBooking;
 import truckapp.model.Order;
 import truckapp.model.Truck;
-import truckapp.model.User;
+import truckapp.repositories.EmployeeBookingRepository;
 import truckapp.repositories.OrderRepository;
 import truckapp.validators.OrderValidator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Сервис, осуществляющий связь контроллера заказов с таблицей заказов
@@ -34,23 +53,71 @@ public class OrderService {
     @Autowired
     private MailSender mailSender;
 
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private EmployeeBookingRepository employeeBookingRepository;
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private static final int STREAM_CHUNK = 500;
+
+    @Value("${truckapp.page-size}")
+    private int pageSize;
+
     /**
-     * метод сохранения нового заказа в бд
+     * метод сохранения нового заказа в бд вместе с занятостью назначенных сотрудников.
+     * Если автомобиль или кто-то из сотрудников уже занят на дату заказа,
+     * транзакция откатывается с {@link org.springframework.dao.DataIntegrityViolationException}
      *
      * @param order объект заказа
      */
+    @Timed(value = "truckapp_order_save", help = "Order saves")
+    @Transactional
     public void save(Order order) {
-        User user = authorizationService.findByUsername(order.getCustomerUsername());
-        String message = "Здравствуйте, " + order.getCustomerUsername() + ". Вами был оформлен заказ." + '\n' +
-                "Информация о заказе: " + '\n' +
-                "Пункт отправки: " + order.getAddressFrom() + '\n' +
-                "Пункт назначения: " + order.getAddressTo() + '\n' +
-                "Дата оформления заказа: " + order.getCreationDate() + '\n' +
-                "Дата выполнения заказа: " + order.getTargetDate() + '\n' +
-                "Примерная стоимость: " + order.getPrice() + " руб." + '\n' + '\n' +
-                "Спасибо, что выбрали нас!";
-        mailSender.send(user.getEmail(), "Новый заказ", message);
-        orderRepository.save(order);
+        saveAll(Collections.singletonList(order));
+    }
+
+    /**
+     * метод сохранения пачки новых заказов одной транзакцией.
+     * id заказов выделяются из последовательности блоками, поэтому заказы, строки employees_orders,
+     * занятость сотрудников и письма вставляются пакетными запросами.
+     * Если хотя бы один ресурс уже занят, откатывается вся пачка
+     *
+     * @param orders объекты заказов
+     */
+    @Timed(value = "truckapp_order_save_all", help = "Batched order saves")
+    @Transactional
+    public void saveAll(List<Order> orders) {
+        if (orders.isEmpty())
+            return;
+        orderRepository.saveAll(orders);
+        List<EmployeeBooking> bookings = new ArrayList<>();
+        for (Order order : orders) {
+            for (Employee worker : order.getWorkers())
+                bookings.add(new EmployeeBooking(worker.getId(), order.getTargetDate(), order.getId()));
+        }
+        employeeBookingRepository.saveAll(bookings);
+        employeeBookingRepository.flush();
+        for (Order order : orders) {
+            UserRow user = authorizationService.findByUsername(order.getCustomerUsername());
+            String message = "Здравствуйте, " + order.getCustomerUsername() + ". Вами был оформлен заказ." + '\n' +
+                    "Информация о заказе: " + '\n' +
+                    "Пункт отправки: " + order.getAddressFrom() + '\n' +
+                    "Пункт назначения: " + order.getAddressTo() + '\n' +
+                    "Дата оформления заказа: " + order.getCreationDate() + '\n' +
+                    "Дата выполнения заказа: " + order.getTargetDate() + '\n' +
+                    "Примерная стоимость: " + order.getPrice() + " руб." + '\n' + '\n' +
+                    "Спасибо, что выбрали нас!";
+            mailSender.send(user.getEmail(), "Новый заказ", message);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                orders.forEach(availabilityIndex::book);
+            }
+        });
     }
 
     /**
@@ -62,29 +129,108 @@ public class OrderService {
     }
 
     /**
-     * получение данных о всех заказах пользователя
+     * получение страницы заказов пользователя
      *
      * @param customerUsername никней пользователя
-     * @return лист заказов
+     * @param token токен страницы, для первой страницы - null
+     * @return страница строк заказов
      */
-    public List<Order> findAllByCustomerUsername(String customerUsername) {
-        return orderRepository.findAllByCustomerUsername(customerUsername);
+    public KeysetPage<OrderRow> findCustomerOrderRowsPage(String customerUsername, String token) {
+        PageToken pageToken = PageToken.parse(token);
+        List<OrderRow> rows = orderRepository.findCustomerOrderRowsAfter(customerUsername, pageToken.getId(),
+                PageRequest.of(0, pageSize + 1));
+        fillWorkers(rows);
+        return KeysetPage.of(rows, pageSize, row -> new PageToken(null, row.getId()));
     }
 
     /**
      * удаление заказа по его id
      * @param id id заказа
      */
+    @Transactional
     public void delete(Long id) {
-        orderRepository.deleteById(id);
+        orderRepository.findById(id).ifPresent(order -> {
+            employeeBookingRepository.deleteAllByOrderId(order.getId());
+            orderRepository.delete(order);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    availabilityIndex.release(order);
+                }
+            });
+        });
+    }
+
+    /**
+     * Получение страницы заказов всех пользователей, отсортированных по никнейму заказчика
+     * @param token токен страницы, для первой страницы - null
+     * @return страница строк заказов
+     */
+    public KeysetPage<OrderRow> findOrderRowsPage(String token) {
+        PageToken pageToken = PageToken.parse(token);
+        List<OrderRow> rows = orderRepository.findOrderRowsAfter(pageToken.getKey(), pageToken.getId(),
+                PageRequest.of(0, pageSize + 1));
+        fillWorkers(rows);
+        return KeysetPage.of(rows, pageSize, row -> new PageToken(row.getCustomerUsername(), row.getId()));
     }
 
     /**
-     * Метод для получения списка всех заказов, отсортированных по никнейму заказчика
-     * @return отсортированный список всех заказов
+     * Получение строки заказа по id
+     * @param id id заказа
+     * @return строка заказа или null
      */
-    public List<Order> findAllByOrderByCustomerUsername() {
-        return orderRepository.findAllByOrderByCustomerUsername();
+    public OrderRow findOrderRow(Long id) {
+        List<OrderRow> rows = orderRepository.findOrderRowsByIds(Collections.singleton(id));
+        fillWorkers(rows);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Построчная обработка заказов, читаемых курсором бд в одной транзакции.
+     * В памяти одновременно находится не больше {@value #STREAM_CHUNK} строк,
+     * имена сотрудников подставляются одним запросом на порцию
+     * @param customerUsername никнейм заказчика или null для заказов всех пользователей
+     * @param consumer обработчик строки
+     */
+    @Transactional(readOnly = true)
+    public void forEachOrderRow(String customerUsername, Consumer<OrderRow> consumer) {
+        try (Stream<OrderRow> stream = customerUsername == null ? orderRepository.streamOrderRows()
+                : orderRepository.streamCustomerOrderRows(customerUsername)) {
+            List<OrderRow> chunk = new ArrayList<>(STREAM_CHUNK);
+            Iterator<OrderRow> rows = stream.iterator();
+            while (rows.hasNext()) {
+                chunk.add(rows.next());
+                if (chunk.size() == STREAM_CHUNK || !rows.hasNext()) {
+                    fillWorkers(chunk);
+                    chunk.forEach(consumer);
+                    chunk.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Получение версии набора заказов для заголовка ETag
+     * @param customerUsername никнейм заказчика или null для заказов всех пользователей
+     * @return строка версии
+     */
+    public String findVersion(String customerUsername) {
+        return customerUsername == null ? orderRepository.findVersion()
+                : orderRepository.findCustomerVersion(customerUsername);
+    }
+
+    /**
+     * Заполнение имён назначенных сотрудников одним запросом на всю страницу
+     * @param rows строки заказов
+     */
+    private void fillWorkers(List<OrderRow> rows) {
+        if (rows.isEmpty())
+            return;
+        Map<Long, OrderRow> rowsById = new HashMap<>();
+        for (OrderRow row : rows)
+            rowsById.put(row.getId(), row);
+        for (Object[] workerName : orderRepository.findWorkerNamesByOrderIds(rowsById.keySet()))
+            rowsById.get((Long) workerName[0]).getWorkers().add((String) workerName[1]);
     }
 
     /**
@@ -96,18 +242,19 @@ public class OrderService {
     public void pasteOrderForm(Order orderForm, int numberOfWorkers, Model model) {
         model.addAttribute("addressFrom_paste", orderForm.getAddressFrom());
         model.addAttribute("addressTo_paste", orderForm.getAddressTo());
-        model.addAttribute("distance_paste", orderForm.getDistance());
-        model.addAttribute("duration_paste", orderForm.getDuration());
+        model.addAttribute("distanceM_paste", orderForm.getDistanceM());
+        model.addAttribute("durationS_paste", orderForm.getDurationS());
+        if (orderForm.getDistanceM() != null)
+            model.addAttribute("distance_paste", String.format("%.1f км", orderForm.getDistanceM() / 1000.0));
+        if (orderForm.getDurationS() != null)
+            model.addAttribute("duration_paste", String.format("%d ч. %d мин.",
+                    orderForm.getDurationS() / 3600, orderForm.getDurationS() % 3600 / 60));
         model.addAttribute("targetDate_paste", orderForm.getTargetDate());
-        if (orderForm.getTargetTime().length() == 5) {
-            model.addAttribute("hours_paste", orderForm.getTargetTime().split(":")[0]);
-            model.addAttribute("minutes.paste", orderForm.getTargetTime().split(":")[1]);
+        if (orderForm.getTargetTime() != null) {
+            model.addAttribute("hours_paste", String.format("%02d", orderForm.getTargetTime().getHour()));
+            model.addAttribute("minutes_paste", String.format("%02d", orderForm.getTargetTime().getMinute()));
+            model.addAttribute("targetTime_paste", orderForm.getTargetTime().format(TIME_FORMAT));
         }
-        else if (orderForm.getTargetTime().length() >= 3 && orderForm.getTargetTime().charAt(2) == ':')
-            model.addAttribute("hours_paste", orderForm.getTargetTime().split(":")[0]);
-        else if (orderForm.getTargetTime().length() >= 3 && orderForm.getTargetTime().charAt(0) == ':')
-            model.addAttribute("minutes_paste", orderForm.getTargetTime().split(":")[1]);
-        model.addAttribute("targetTime_paste", orderForm.getTargetTime());
         model.addAttribute("numberOfWorkers_paste", numberOfWorkers);
         model.addAttribute("price_paste", orderForm.getPrice());
     }
@@ -128,7 +275,8 @@ public class OrderService {
             for (Object object : bindingResult.getAllErrors()) {
                 if (object instanceof FieldError) {
                     FieldError fieldError = (FieldError)object;
-                    model.addAttribute(fieldError.getField(), fieldError.getCode());
+                    model.addAttribute(fieldError.getField(),
+                            fieldError.isBindingFailure() ? "неверный формат" : fieldError.getCode());
                 }
             }
 
@@ -139,11 +287,57 @@ public class OrderService {
     }
 
     /**
-     * Поиск заказов по подстроке никнейма заказчика
+     * Поиск заказов по подстроке никнейма заказчика, упорядоченных по похожести никнейма
      * @param username подстрока никнейма заказчика
-     * @return список заказов
+     * @param page номер страницы, начиная с 0. Отрицательный номер считается первой страницей
+     * @return страница строк заказов, токен следующей страницы - её номер
+     */
+    public KeysetPage<OrderRow> searchOrderRows(String username, int page) {
+        page = Math.max(page, 0);
+        List<Long> ids = toLongs(orderRepository.searchIdsByCustomerUsername(escapeLike(username), username,
+                pageSize + 1, offset(page, pageSize)));
+        List<OrderRow> rows = new ArrayList<>();
+        if (!ids.isEmpty()) {
+            Map<Long, OrderRow> rowsById = new HashMap<>();
+            for (OrderRow row : orderRepository.findOrderRowsByIds(ids))
+                rowsById.put(row.getId(), row);
+            for (Long id : ids)
+                rows.add(rowsById.get(id));
+            fillWorkers(rows);
+        }
+        if (rows.size() <= pageSize)
+            return new KeysetPage<>(rows, null);
+        return new KeysetPage<>(rows.subList(0, pageSize), String.valueOf(page + 1));
+    }
+
+    /**
+     * Экранирование спецсимволов шаблона LIKE в строке поиска
+     * @param value строка поиска
+     * @return экранированная строка
+     */
+    static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Смещение страницы результатов поиска, не переполняющее int на больших номерах страниц
+     * @param page неотрицательный номер страницы
+     * @param pageSize размер страницы
+     * @return смещение для запроса
+     */
+    static int offset(int page, int pageSize) {
+        return (int) Math.min((long) page * pageSize, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Преобразование id из нативного запроса в Long
+     * @param ids id в виде чисел
+     * @return список id
      */
-    public List<Order> searchOrdersByUsername(String username) {
-        return orderRepository.findAllByCustomerUsernameContainingIgnoreCase(username);
+    static List<Long> toLongs(List<Number> ids) {
+        List<Long> result = new ArrayList<>(ids.size());
+        for (Number id : ids)
+            result.add(id.longValue());
+        return result;
     }
 }
@@ -0,0 +1,76 @@
+package truckapp.services;
+
+import truckapp.configuration.PersistentLoginService;
+import truckapp.model.User;
+import truckapp.model.UserToken;
+import truckapp.repositories.UserRepository;
+import truckapp.roles.Role;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+
+/**
+ * Сервис сохранения нового пользователя вместе с токеном и письмом активации
+ * и смены забытого пароля вместе с погашением токена восстановления.
+ * Если никнейм, эл.почту или номер телефона успели занять после проверки формы,
+ * транзакция откатывается с {@link org.springframework.dao.DataIntegrityViolationException}
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@Service
+public class RegistrationService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MailSender mailSender;
+
+    @Autowired
+    private UserTokenService userTokenService;
+
+    @Autowired
+    private PersistentLoginService persistentLoginService;
+
+    /**
+     * Сохранение пользователя и постановка письма активации в очередь
+     * @param user объект пользователя с уже закодированным паролем
+     */
+    @Transactional
+    public void register(User user) {
+        user.setRoles(Collections.singleton(Role.USER));
+        user.setActivated(false);
+        userRepository.save(user);
+        String activationToken = userTokenService.issue(user.getId(), UserToken.Type.ACTIVATION);
+        String message = String.format(
+                "Здравствуйте, %s \n" +
+                        "Пожалуйста, перейдите по следующей ссылке, чтобы активировать свою учётную запись: " +
+                        "http://localhost:8087/activate/%s",
+                user.getUsername(),
+                activationToken
+        );
+        mailSender.send(user.getEmail(), "Активация учётной записи", message);
+    }
+
+    /**
+     * Погашение токена восстановления, запись нового пароля и отзыв постоянных входов пользователя.
+     * Все изменения откатываются вместе, поэтому при ошибке токен остаётся действительным
+     * @param token токен из ссылки
+     * @param encodedPassword уже закодированный новый пароль
+     * @return пользователь или null, если токен неизвестен, просрочен или уже использован
+     */
+    @Transactional
+    public User resetPassword(String token, String encodedPassword) {
+        Long userId = userTokenService.consume(token, UserToken.Type.PASSWORD_RESET);
+        User user = userId == null ? null : userRepository.findById(userId).orElse(null);
+        if (user == null)
+            return null;
+        user.setPassword(encodedPassword);
+        userRepository.save(user);
+        persistentLoginService.removeAll(user.getId());
+        return user;
+    }
+}
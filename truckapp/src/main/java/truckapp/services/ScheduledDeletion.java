@@ -1,37 +1,70 @@
 package truckapp.services;
 
-import truckapp.model.Order;
+import truckapp.metrics.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.List;
+import java.time.LocalDate;
 
 /**
- * Класс, отвечающий за автоудаление заказов
+ * Класс, отвечающий за автоудаление заказов.
+ * Заказы удаляются пачками одним sql-запросом на пачку вместе со строками
+ * employees_orders и employee_booking8, между пачками делается пауза,
+ * чтобы не занимать бд надолго
  */
 @Service
 public class ScheduledDeletion {
 
+    private static final Logger log = LoggerFactory.getLogger(ScheduledDeletion.class);
+
+    /**
+     * Удаление одной пачки заказов, дата выполнения которых прошла.
+     * Проверка внешних ключей выполняется в конце запроса, когда строки связей уже удалены
+     */
+    private static final String DELETE_BATCH =
+            "with expired as (" +
+            "    select id from order8 where target_date < ? order by id limit ? for update skip locked), " +
+            "workers as (" +
+            "    delete from employees_orders where order_id in (select id from expired)), " +
+            "bookings as (" +
+            "    delete from employee_booking8 where order_id in (select id from expired)) " +
+            "delete from order8 where id in (select id from expired)";
+
     @Autowired
-    private OrderService orderService;
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Value("${truckapp.expiry.batch-size}")
+    private int batchSize;
+
+    @Value("${truckapp.expiry.pause-ms}")
+    private long pauseMillis;
 
     /**
      * Метод, удаляющий заказы, дата выполнения которых прошла
-     * @throws ParseException
+     * @throws InterruptedException
      */
+    @Timed(value = "truckapp_expired_orders_deletion", help = "Expired order deletion runs")
     @Scheduled(cron = "0 0 0 * * ?")
-    public void deleteOrders() throws ParseException {
-        List<Order> orders = orderService.findAll();
-        Date currentDate = new Date();
-        for (Order order : orders) {
-            Date targetDate = new SimpleDateFormat("yyyy-MM-dd").parse(order.getTargetDate());
-            System.out.println(targetDate);
-            if (targetDate.before(currentDate))
-                orderService.delete(order.getId());
-        }
+    public void deleteOrders() throws InterruptedException {
+        LocalDate today = LocalDate.now();
+        long start = System.currentTimeMillis();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(DELETE_BATCH, today, batchSize);
+            total += deleted;
+            if (deleted == batchSize)
+                Thread.sleep(pauseMillis);
+        } while (deleted == batchSize);
+        availabilityIndex.evictBefore(today);
+        log.info("Deleted {} expired orders in {} ms", total, System.currentTimeMillis() - start);
     }
 }
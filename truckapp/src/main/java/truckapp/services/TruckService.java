@@ -1,16 +1,21 @@
 package truckapp.services;
 
+import truckapp.dto.TruckRow;
+import truckapp.metrics.Timed;
 import truckapp.model.Order;
 import truckapp.model.Truck;
 import truckapp.repositories.TruckRepository;
 import truckapp.validators.TruckValidator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Сервис, осуществляющий работу с таблицей грузовиков
@@ -27,12 +32,35 @@ public class TruckService {
     @Autowired
     private TruckValidator truckValidator;
 
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
     /**
      * метод сохранения нового автомобиля
      * @param truck объект автомобиля
      */
     public void save(Truck truck) {
         truckRepository.save(truck);
+        availabilityIndex.addTruck(truck);
+    }
+
+    /**
+     * Построчная обработка грузовиков, читаемых курсором бд в одной транзакции
+     * @param consumer обработчик строки
+     */
+    @Transactional(readOnly = true)
+    public void forEachTruckRow(Consumer<TruckRow> consumer) {
+        try (Stream<TruckRow> rows = truckRepository.streamTruckRows()) {
+            rows.forEach(consumer);
+        }
+    }
+
+    /**
+     * Получение версии списка грузовиков для заголовка ETag
+     * @return строка версии
+     */
+    public String findVersion() {
+        return truckRepository.findVersion();
     }
 
     /**
@@ -54,30 +82,27 @@ public class TruckService {
         return truckRepository.findByCarNumber(carNumber);
     }
 
+    /**
+     * Проверка, занят ли автомобильный номер
+     * @param carNumber автомобильный номер
+     * @return true, если грузовик с таким номером уже есть
+     */
+    public boolean existsByCarNumber(String carNumber) {
+        return truckRepository.existsByCarNumber(carNumber);
+    }
+
     /**
      * установка автомобиля на заказ
      * @param orderForm объект заказа
-     * @param trucks лист всех автомобилей
-     * @return
+     * @param description характеристика требуемого грузовика
+     * @return свободный на дату заказа автомобиль или null. Автомобиль читается через кэш второго уровня
      */
-    public Truck setTruckToOrder(Order orderForm, List<Truck> trucks) {
-        boolean flag;
-        for (Truck truck : trucks) {
-            flag = true;
-            if (truck.getOrders().isEmpty()) {
-                return truck;
-            }
-            else {
-                for (Order order : truck.getOrders()) {
-                    if (order.getTargetDate().equals(orderForm.getTargetDate()))
-                        flag = false;
-                }
-                if (flag) {
-                    return truck;
-                }
-            }
-        }
-        return null;
+    @Timed(value = "truckapp_truck_allocation", help = "Picking a free truck for an order")
+    public Truck setTruckToOrder(Order orderForm, String description) {
+        Long id = availabilityIndex.findFreeTruck(orderForm.getTargetDate(), description);
+        if (id == null)
+            return null;
+        return truckRepository.findById(id).orElse(null);
     }
 
     /**
@@ -0,0 +1,182 @@
+package truckapp.services;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import truckapp.dto.UserRow;
+import truckapp.model.User;
+import truckapp.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кэш пользователей по никнейму, эл.почте и номеру телефона.
+ * Пользователь хранится один раз под никнеймом в виде неизменяемого {@link UserRow} без хеша пароля,
+ * а эл.почта и телефон ссылаются на никнейм. Изменения пользователя выполняются только
+ * над сущностью, прочитанной из бд, поэтому запись не может испортить кэшированный объект.
+ * Отсутствующие пользователи не кэшируются. Записи вытесняются по размеру и по времени,
+ * а после изменения пользователя удаляются явно через {@link #invalidate(User)}.
+ * Явное удаление действует только в этом экземпляре приложения, поэтому срок жизни записи
+ * truckapp.user-cache.ttl-seconds - несколько секунд: столько другие экземпляры могут видеть
+ * прежние роли и признак активации. Пароль по кэшу не проверяется, см. {@link DetailsService}
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@Service
+@ManagedResource(objectName = "truckapp:name=userCache")
+public class UserCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${truckapp.user-cache.max-size}")
+    private long maxSize;
+
+    @Value("${truckapp.user-cache.ttl-seconds}")
+    private long ttlSeconds;
+
+    private Cache<String, UserRow> usersByUsername;
+
+    private Cache<String, String> usernamesByEmail;
+
+    private Cache<String, String> usernamesByPhoneNumber;
+
+    /**
+     * Создание кэшей
+     */
+    @PostConstruct
+    public void init() {
+        usersByUsername = newCache();
+        usernamesByEmail = newCache();
+        usernamesByPhoneNumber = newCache();
+    }
+
+    /**
+     * Поиск пользователя по никнейму
+     * @param username никнейм пользователя
+     * @return снимок пользователя или null
+     */
+    public UserRow findByUsername(String username) {
+        if (username == null)
+            return null;
+        UserRow user = usersByUsername.getIfPresent(username);
+        if (user == null) {
+            user = UserRow.of(userRepository.findByUsername(username));
+            put(user);
+        }
+        return user;
+    }
+
+    /**
+     * Поиск пользователя по адресу эл.почты
+     * @param email адрес эл.почты
+     * @return снимок пользователя или null
+     */
+    public UserRow findByEmail(String email) {
+        if (email == null)
+            return null;
+        UserRow user = cached(usernamesByEmail.getIfPresent(email));
+        if (user == null) {
+            user = UserRow.of(userRepository.findByEmail(email));
+            put(user);
+        }
+        return user;
+    }
+
+    /**
+     * Поиск пользователя по номеру телефона
+     * @param phoneNumber номер телефона
+     * @return снимок пользователя или null
+     */
+    public UserRow findByPhoneNumber(String phoneNumber) {
+        if (phoneNumber == null)
+            return null;
+        UserRow user = cached(usernamesByPhoneNumber.getIfPresent(phoneNumber));
+        if (user == null) {
+            user = UserRow.of(userRepository.findByPhoneNumber(phoneNumber));
+            put(user);
+        }
+        return user;
+    }
+
+    /**
+     * Удаление пользователя из кэша после изменения
+     * @param user объект пользователя
+     */
+    public void invalidate(User user) {
+        if (user == null)
+            return;
+        if (user.getUsername() != null)
+            usersByUsername.invalidate(user.getUsername());
+        if (user.getEmail() != null)
+            usernamesByEmail.invalidate(user.getEmail());
+        if (user.getPhoneNumber() != null)
+            usernamesByPhoneNumber.invalidate(user.getPhoneNumber());
+    }
+
+    @ManagedOperation(description = "Drop all cached users")
+    public void invalidateAll() {
+        usersByUsername.invalidateAll();
+        usernamesByEmail.invalidateAll();
+        usernamesByPhoneNumber.invalidateAll();
+    }
+
+    @ManagedAttribute(description = "Lookups answered from the cache")
+    public long getHitCount() {
+        return stats().hitCount();
+    }
+
+    @ManagedAttribute(description = "Lookups that went to the database")
+    public long getMissCount() {
+        return stats().missCount();
+    }
+
+    @ManagedAttribute(description = "Share of lookups answered from the cache")
+    public double getHitRate() {
+        return stats().hitRate();
+    }
+
+    @ManagedAttribute(description = "Entries evicted by size or age")
+    public long getEvictionCount() {
+        return stats().evictionCount();
+    }
+
+    @ManagedAttribute(description = "Cached users")
+    public long getSize() {
+        return usersByUsername.size();
+    }
+
+    private CacheStats stats() {
+        return usersByUsername.stats().plus(usernamesByEmail.stats()).plus(usernamesByPhoneNumber.stats());
+    }
+
+    private UserRow cached(String username) {
+        return username == null ? null : usersByUsername.getIfPresent(username);
+    }
+
+    private void put(UserRow user) {
+        if (user == null || user.getUsername() == null)
+            return;
+        usersByUsername.put(user.getUsername(), user);
+        if (user.getEmail() != null)
+            usernamesByEmail.put(user.getEmail(), user.getUsername());
+        if (user.getPhoneNumber() != null)
+            usernamesByPhoneNumber.put(user.getPhoneNumber(), user.getUsername());
+    }
+
+    private <V> Cache<String, V> newCache() {
+        return CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+}
@@ -0,0 +1,136 @@
+package truckapp.services;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import truckapp.model.User;
+import truckapp.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Фильтр Блума занятых никнеймов, адресов эл.почты и номеров телефона.
+ * Отрицательный ответ фильтра точен для пользователей, сохранённых этим экземпляром приложения,
+ * поэтому регистрация с новыми данными не обращается к бд. Положительный ответ перепроверяется запросом.
+ * Пользователей, зарегистрированных другими экземплярами, фильтр не знает до перестроения:
+ * такие совпадения отсекают уникальные индексы user8 при сохранении. Поэтому фильтр используется
+ * только при сохранении формы регистрации, а не для проверок, которые ничем не подстрахованы.
+ * Фильтр строится при запуске с запасом в truckapp.user-filter.headroom раз к числу пользователей
+ * и перестраивается, когда запас исчерпан
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@Service
+@DependsOn("schemaMigrations")
+@ManagedResource(objectName = "truckapp:name=userExistenceFilter")
+public class UserExistenceFilter {
+
+    private static final String USERNAME = "u:";
+
+    private static final String EMAIL = "e:";
+
+    private static final String PHONE_NUMBER = "p:";
+
+    private static final int FIELDS = 3;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${truckapp.user-filter.min-users}")
+    private long minUsers;
+
+    @Value("${truckapp.user-filter.headroom}")
+    private int headroom;
+
+    @Value("${truckapp.user-filter.false-positive-rate}")
+    private double falsePositiveRate;
+
+    private BloomFilter<CharSequence> filter;
+
+    private long capacity;
+
+    private long entries;
+
+    /**
+     * Построение фильтра по всем пользователям из бд
+     */
+    @PostConstruct
+    @ManagedOperation(description = "Rebuild the filter from the database")
+    public void rebuild() {
+        List<Object[]> rows = userRepository.findAllUsernamesEmailsAndPhoneNumbers();
+        long newCapacity = Math.max(minUsers, (long) rows.size() * headroom) * FIELDS;
+        BloomFilter<CharSequence> newFilter =
+                BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), newCapacity, falsePositiveRate);
+        long newEntries = 0;
+        for (Object[] row : rows)
+            newEntries += put(newFilter, (String) row[0], (String) row[1], (String) row[2]);
+        synchronized (this) {
+            filter = newFilter;
+            capacity = newCapacity;
+            entries = newEntries;
+        }
+    }
+
+    /**
+     * Добавление данных сохранённого пользователя
+     * @param user объект пользователя
+     */
+    public void add(User user) {
+        boolean full;
+        synchronized (this) {
+            entries += put(filter, user.getUsername(), user.getEmail(), user.getPhoneNumber());
+            full = entries > capacity;
+        }
+        if (full)
+            rebuild();
+    }
+
+    /**
+     * @param username никнейм
+     * @param email адрес эл.почты
+     * @param phoneNumber номер телефона
+     * @return false, если все значения точно свободны, true, если хотя бы одно может быть занято
+     */
+    public synchronized boolean mightContainAny(String username, String email, String phoneNumber) {
+        return mightContain(USERNAME, username) || mightContain(EMAIL, email) || mightContain(PHONE_NUMBER, phoneNumber);
+    }
+
+    @ManagedAttribute(description = "Values added to the filter")
+    public synchronized long getEntries() {
+        return entries;
+    }
+
+    @ManagedAttribute(description = "Values the filter is sized for")
+    public synchronized long getCapacity() {
+        return capacity;
+    }
+
+    @ManagedAttribute(description = "Current probability of a false positive")
+    public synchronized double getExpectedFalsePositiveRate() {
+        return filter.expectedFpp();
+    }
+
+    private boolean mightContain(String prefix, String value) {
+        return value != null && filter.mightContain(prefix + value);
+    }
+
+    private static int put(BloomFilter<CharSequence> filter, String username, String email, String phoneNumber) {
+        return put(filter, USERNAME, username) + put(filter, EMAIL, email) + put(filter, PHONE_NUMBER, phoneNumber);
+    }
+
+    private static int put(BloomFilter<CharSequence> filter, String prefix, String value) {
+        if (value == null)
+            return 0;
+        filter.put(prefix + value);
+        return 1;
+    }
+}
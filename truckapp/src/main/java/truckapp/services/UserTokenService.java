@@ -0,0 +1,127 @@
+package truckapp.services;
+
+import com.google.common.hash.Hashing;
+import truckapp.metrics.Timed;
+import truckapp.model.UserToken;
+import truckapp.repositories.UserTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Сервис одноразовых токенов активации учётной записи и смены пароля.
+ * Токен - 256 случайных бит, в бд хранится только его SHA-256, поэтому проверка токена -
+ * одно удаление по первичному ключу, не зависящее от числа пользователей.
+ * Удаление одновременно гасит токен, так что его нельзя использовать дважды.
+ * Просроченные токены удаляются пачками по расписанию
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+@Service
+public class UserTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserTokenService.class);
+
+    private static final int TOKEN_BYTES = 32;
+
+    private static final String CONSUME =
+            "delete from user_token8 where token_hash = ? and type = ? and expires_at > ? returning user_id";
+
+    private static final String DELETE_EXPIRED_BATCH =
+            "delete from user_token8 where token_hash in (" +
+            "    select token_hash from user_token8 where expires_at <= ? limit ? for update skip locked)";
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    private UserTokenRepository userTokenRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${truckapp.user-token.activation-ttl-seconds}")
+    private long activationTtlSeconds;
+
+    @Value("${truckapp.user-token.password-reset-ttl-seconds}")
+    private long passwordResetTtlSeconds;
+
+    @Value("${truckapp.user-token.sweep-batch-size}")
+    private int sweepBatchSize;
+
+    /**
+     * Выпуск токена. Вызывается в транзакции, которая сохраняет пользователя или ставит письмо в очередь,
+     * чтобы токен не остался без письма
+     * @param userId id пользователя
+     * @param type назначение токена
+     * @return токен для ссылки в письме
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public String issue(Long userId, UserToken.Type type) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        long ttlSeconds = type == UserToken.Type.ACTIVATION ? activationTtlSeconds : passwordResetTtlSeconds;
+        userTokenRepository.save(new UserToken(hash(token), type, userId, LocalDateTime.now().plusSeconds(ttlSeconds)));
+        return token;
+    }
+
+    /**
+     * Удаление прежних токенов пользователя, например перед выпуском новой ссылки для смены пароля
+     * @param userId id пользователя
+     * @param type назначение токена
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void revoke(Long userId, UserToken.Type type) {
+        userTokenRepository.deleteAllByUserIdAndType(userId, type);
+    }
+
+    /**
+     * Проверка и погашение токена
+     * @param token токен из ссылки
+     * @param type ожидаемое назначение токена
+     * @return id пользователя или null, если токен неизвестен, просрочен, уже использован или выпущен для другого
+     */
+    public Long consume(String token, UserToken.Type type) {
+        if (token == null || token.isEmpty())
+            return null;
+        List<Long> userIds = jdbcTemplate.queryForList(CONSUME, Long.class,
+                hash(token), type.name(), Timestamp.valueOf(LocalDateTime.now()));
+        return userIds.isEmpty() ? null : userIds.get(0);
+    }
+
+    /**
+     * Удаление просроченных токенов
+     */
+    @Timed(value = "truckapp_expired_tokens_deletion", help = "Expired token deletion runs")
+    @Scheduled(fixedDelayString = "${truckapp.user-token.sweep-interval-ms}")
+    public void deleteExpired() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        long start = System.currentTimeMillis();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(DELETE_EXPIRED_BATCH, now, sweepBatchSize);
+            total += deleted;
+        } while (deleted == sweepBatchSize);
+        if (total > 0)
+            log.info("Deleted {} expired tokens in {} ms", total, System.currentTimeMillis() - start);
+    }
+
+    private static String hash(String token) {
+        return Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString();
+    }
+}
@@ -1,6 +1,7 @@
 package truckapp.validators;
 
 import truckapp.model.User;
+import truckapp.repositories.UserRepository;
 import truckapp.services.AuthorizationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -8,9 +9,6 @@ import org.springframework.validation.Errors;
 import org.springframework.validation.ValidationUtils;
 import org.springframework.validation.Validator;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * Валидатор для проверки данных из форме для регистрации нового пользователя
  *
@@ -23,15 +21,6 @@ public class AuthorizationValidator implements Validator {
     @Autowired
     private AuthorizationService authorizationService;
 
-    private Pattern pattern;
-    private Matcher matcher;
-
-    /**
-     * Паттерны для проверки номеров телефона и эл.адресов
-     */
-    private static final String EMAIL_PATTERN = "[a-zA-Z0-9[!#$%&'()*+,/\\-_\\.\"]]+@[a-zA-Z0-9[!#$%&'()*+,/\\-_\"]]+\\.[a-zA-Z0-9[!#$%&'()*+,/\\-_\"\\.]]+";
-    private static final String PHONE_PATTERN = "^[0-9.()-]{10}";
-
     /**
      * {@inheritDoc}
      *
@@ -54,24 +43,34 @@ public class AuthorizationValidator implements Validator {
         ValidationUtils.rejectIfEmptyOrWhitespace(errors, "username", "обязательно к заполнению");
         if (user.getUsername().length() < 4 || user.getUsername().length() >= 20)
             errors.rejectValue("username", "ник должен быть от 4 до 20 символов");
-        if (authorizationService.findByUsername(user.getUsername()) != null)
-            errors.rejectValue("username", "пользователь с таким ником уже существует");
 
         ValidationUtils.rejectIfEmptyOrWhitespace(errors, "email", "обязательно к заполнению");
         if (!validateEmail(user.getEmail()))
             errors.rejectValue("email", "неправильный формат эл.почты");
-        if (authorizationService.findByEmail(user.getEmail()) != null)
-            errors.rejectValue("email", "пользователь с такой эл.почтой уже сущетсвует");
 
         ValidationUtils.rejectIfEmptyOrWhitespace(errors, "phoneNumber", "обязательно к заполнению");
         if (!validatePhoneNumber(user.getPhoneNumber()))
             errors.rejectValue("phoneNumber", "неправильный формат номера телефона");
-        if (authorizationService.findByPhoneNumber(user.getPhoneNumber()) != null)
-            errors.rejectValue("phoneNumber", "пользователь с таким номером телефона уже существует");
 
         ValidationUtils.rejectIfEmptyOrWhitespace(errors, "password", "обязательно к заполнению");
         if (user.getPassword().length() < 6)
             errors.rejectValue("password", "пароль не должен быть короче 6 символов");
+
+        rejectCollisions(authorizationService.findCollisions(user), errors);
+    }
+
+    /**
+     * Добавление ошибок для занятых никнейма, эл.почты и номера телефона
+     * @param collisions результат {@link UserRepository#findCollisions}
+     * @param errors лист для добавления ошибок
+     */
+    public void rejectCollisions(int collisions, Errors errors) {
+        if ((collisions & UserRepository.USERNAME_TAKEN) != 0)
+            errors.rejectValue("username", "пользователь с таким ником уже существует");
+        if ((collisions & UserRepository.EMAIL_TAKEN) != 0)
+            errors.rejectValue("email", "пользователь с такой эл.почтой уже сущетсвует");
+        if ((collisions & UserRepository.PHONE_NUMBER_TAKEN) != 0)
+            errors.rejectValue("phoneNumber", "пользователь с таким номером телефона уже существует");
     }
 
     /**
@@ -81,9 +80,7 @@ public class AuthorizationValidator implements Validator {
      * @return a boolean.
      */
     public boolean validateEmail(String email) {
-        pattern = Pattern.compile(EMAIL_PATTERN);
-        matcher = pattern.matcher(email);
-        return matcher.matches();
+        return Patterns.matches(Patterns.EMAIL, email);
     }
 
     /**
@@ -93,18 +90,12 @@ public class AuthorizationValidator implements Validator {
      * @return a boolean.
      */
     public boolean validatePhoneNumber(String phoneNumber) {
-        if (phoneNumber.startsWith("8") || phoneNumber.startsWith("+7")) {
-            if (phoneNumber.startsWith("8")) {
-                pattern = Pattern.compile(PHONE_PATTERN);
-                matcher = pattern.matcher(phoneNumber.substring(1));
-                return matcher.matches();
-            }
-            else if (phoneNumber.startsWith("+7")) {
-                pattern = Pattern.compile(PHONE_PATTERN);
-                matcher = pattern.matcher(phoneNumber.substring(2));
-                return matcher.matches();
-            }
-        }
+        if (phoneNumber == null)
+            return false;
+        if (phoneNumber.startsWith("8"))
+            return Patterns.matches(Patterns.PHONE_DIGITS, phoneNumber.substring(1));
+        if (phoneNumber.startsWith("+7"))
+            return Patterns.matches(Patterns.PHONE_DIGITS, phoneNumber.substring(2));
         return false;
     }
 }
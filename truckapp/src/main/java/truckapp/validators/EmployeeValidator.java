@@ -8,9 +8,6 @@ import org.springframework.validation.Errors;
 import org.springframework.validation.ValidationUtils;
 import org.springframework.validation.Validator;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * Валидатор сотрудника
  *
@@ -22,14 +19,6 @@ public class EmployeeValidator implements Validator {
     @Autowired
     private EmployeeService employeeService;
 
-    private Pattern pattern;
-    private Matcher matcher;
-
-    /**
-     * Паттерн для проверки имени и фамилии
-     */
-    private static final String NAME_PATTERN = "^[а-яА-Я_]+( [а-яА-Я_]+)*$";
-
     /**
      * {@inheritDoc}
      *
@@ -59,8 +48,6 @@ public class EmployeeValidator implements Validator {
      * @return boolean
      */
     public boolean validateName(String name) {
-        pattern = Pattern.compile(NAME_PATTERN);
-        matcher = pattern.matcher(name);
-        return matcher.matches();
+        return Patterns.matches(Patterns.EMPLOYEE_NAME, name);
     }
 }
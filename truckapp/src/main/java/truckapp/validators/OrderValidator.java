@@ -12,6 +12,7 @@ import org.springframework.validation.Errors;
 import org.springframework.validation.ValidationUtils;
 import org.springframework.validation.Validator;
 
+import java.time.LocalTime;
 import java.util.List;
 
 /**
@@ -23,6 +24,8 @@ import java.util.List;
 @Component
 public class OrderValidator implements Validator {
 
+    private static final LocalTime CLOSING_TIME = LocalTime.of(20, 0);
+
     @Autowired
     private OrderService orderService;
 
@@ -51,37 +54,51 @@ public class OrderValidator implements Validator {
     }
 
     public void customValidate(Object o, int numberOfWorkers, List<Employee> workersBuf, Truck truck, Errors errors) {
-        Order order = (Order) o;
-//        List<Employee> workers = employeeService.findAll();
-//        List<Employee> workersBuf = employeeService.setWorkersToOrder(order, workers);
-        if(numberOfWorkers > workersBuf.size()) {
+        validateResources(numberOfWorkers, workersBuf.size(), truck != null, errors);
+        validateFields((Order) o, numberOfWorkers, errors);
+    }
+
+    /**
+     * Проверка того, что на заказ нашлось достаточно свободных ресурсов
+     * @param numberOfWorkers количество требующихся сотрудников
+     * @param freeWorkers количество найденных свободных сотрудников
+     * @param truckFound найден ли свободный автомобиль
+     * @param errors лист для добавления ошибок
+     */
+    public void validateResources(int numberOfWorkers, int freeWorkers, boolean truckFound, Errors errors) {
+        if (numberOfWorkers > freeWorkers)
             errors.rejectValue("workers", "Не хватает свободных грузчиков");
-        }
-//        else {
-//            order.setWorkers(workersBuf.subList(0, numberOfWorkers));
-//        }
-//        List<Truck> trucks = truckService.findAllByDescription(truckDescription);
-        if (truck == null) {
+        if (!truckFound)
             errors.rejectValue("truck", "Не хватает свободных автомобилей");
-        }
-//        else {
-//            order.setTruck(truckService.setTruckToOrder(order, trucks));
-//        }
-//        ValidationUtils.rejectIfEmptyOrWhitespace(errors, "city", "обязательно к заполнению");
-//        ValidationUtils.rejectIfEmptyOrWhitespace(errors, "street", "обязательно к заполнению");
-//        ValidationUtils.rejectIfEmptyOrWhitespace(errors, "building", "обязательно к заполнению");
-//        ValidationUtils.rejectIfEmptyOrWhitespace(errors, "targetDate", "обязательно к заполнению");
-        if (order.getAddressFrom().isEmpty() || order.getAddressTo().isEmpty())
+    }
+
+    /**
+     * Проверка полей заказа, не зависящих от занятости ресурсов
+     * @param order объект заказа
+     * @param numberOfWorkers количество требующихся сотрудников
+     * @param errors лист для добавления ошибок
+     */
+    public void validateFields(Order order, int numberOfWorkers, Errors errors) {
+        if (numberOfWorkers < 1)
+            errors.rejectValue("workers", "нужен хотя бы один грузчик");
+        if (isEmpty(order.getAddressFrom()) || isEmpty(order.getAddressTo()))
             errors.rejectValue("addressFrom", "обязательно к заполнению");
-        if (order.getTargetTime().length() != 5)
-            errors.rejectValue("targetTime", "обязательно к заполнению");
-        if (order.getTargetTime().length() == 5) {
-            if (order.getTargetTime().split(":")[0].equals("20") && !order.getTargetTime().split(":")[1].equals("00"))
+        if (!errors.hasFieldErrors("targetTime")) {
+            if (order.getTargetTime() == null)
+                errors.rejectValue("targetTime", "обязательно к заполнению");
+            else if (order.getTargetTime().isAfter(CLOSING_TIME))
                 errors.rejectValue("targetTime", "работаем до 20:00");
         }
 
-        ValidationUtils.rejectIfEmptyOrWhitespace(errors, "targetDate", "обязательно к заполнению");
-        ValidationUtils.rejectIfEmptyOrWhitespace(errors, "distance", "обязательно к заполнению");
-        ValidationUtils.rejectIfEmptyOrWhitespace(errors, "duration", "обязательно к заполнению");
+        if (!errors.hasFieldErrors("targetDate"))
+            ValidationUtils.rejectIfEmpty(errors, "targetDate", "обязательно к заполнению");
+        if (!errors.hasFieldErrors("distanceM"))
+            ValidationUtils.rejectIfEmpty(errors, "distanceM", "обязательно к заполнению");
+        if (!errors.hasFieldErrors("durationS"))
+            ValidationUtils.rejectIfEmpty(errors, "durationS", "обязательно к заполнению");
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
     }
 }
@@ -0,0 +1,48 @@
+package truckapp.validators;
+
+import java.util.regex.Pattern;
+
+/**
+ * Регулярные выражения валидаторов, скомпилированные один раз при загрузке класса.
+ * Pattern неизменяем и потокобезопасен, а Matcher создаётся на каждую проверку,
+ * поэтому валидаторы-синглтоны не хранят изменяемого состояния
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+public final class Patterns {
+
+    /**
+     * Автомобильный номер: буква, три цифры, две буквы, код региона
+     */
+    public static final Pattern CAR_NUMBER = Pattern.compile("[А-Я]\\d{3}[А-Я]{2}\\d{2,3}");
+
+    /**
+     * Имя и фамилия сотрудника кириллицей
+     */
+    public static final Pattern EMPLOYEE_NAME = Pattern.compile("^[а-яА-Я_]+( [а-яА-Я_]+)*$");
+
+    /**
+     * Адрес эл.почты
+     */
+    public static final Pattern EMAIL = Pattern.compile(
+            "[a-zA-Z0-9[!#$%&'()*+,/\\-_\\.\"]]+@[a-zA-Z0-9[!#$%&'()*+,/\\-_\"]]+\\.[a-zA-Z0-9[!#$%&'()*+,/\\-_\"\\.]]+");
+
+    /**
+     * Десять цифр номера телефона после кода страны
+     */
+    public static final Pattern PHONE_DIGITS = Pattern.compile("^[0-9.()-]{10}");
+
+    private Patterns() {
+    }
+
+    /**
+     * Проверка строки на полное соответствие шаблону
+     * @param pattern шаблон
+     * @param value строка, может быть null
+     * @return true, если строка не null и соответствует шаблону
+     */
+    public static boolean matches(Pattern pattern, CharSequence value) {
+        return value != null && pattern.matcher(value).matches();
+    }
+}
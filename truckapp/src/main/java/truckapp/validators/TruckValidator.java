@@ -8,9 +8,6 @@ import org.springframework.validation.Errors;
 import org.springframework.validation.ValidationUtils;
 import org.springframework.validation.Validator;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * Валидатор автомобиля
  *
@@ -23,14 +20,6 @@ public class TruckValidator implements Validator {
     private TruckService truckService;
 
 
-    private Pattern pattern;
-    private Matcher matcher;
-
-    /**
-     * Паттерн для проверки автомобильного номера
-     */
-    private static final String CARNUMBER_PATTERN = "[А-Я]\\d{3}[А-Я]{2}\\d{2,3}";
-
     /**
      * {@inheritDoc}
      *
@@ -52,7 +41,7 @@ public class TruckValidator implements Validator {
         ValidationUtils.rejectIfEmptyOrWhitespace(errors, "carNumber", "обязательно к заполнению");
         if (!validateCarNumber(truck.getCarNumber()))
             errors.rejectValue("carNumber", "неправильный формат автомобильного номера");
-        if (truckService.findByCarNumber(truck.getCarNumber()) != null)
+        if (truck.getCarNumber() != null && truckService.existsByCarNumber(truck.getCarNumber()))
             errors.rejectValue("carNumber", "номер уже занят");
     }
 
@@ -62,8 +51,6 @@ public class TruckValidator implements Validator {
      * @return boolean
      */
     public boolean validateCarNumber(String carNumber) {
-        pattern = Pattern.compile(CARNUMBER_PATTERN);
-        matcher = pattern.matcher(carNumber);
-        return matcher.matches();
+        return Patterns.matches(Patterns.CAR_NUMBER, carNumber);
     }
 }
@@ -0,0 +1,72 @@
+-- Исходная схема приложения. До перехода на миграции таблицы создавал Hibernate (ddl-auto=update),
+-- поэтому все объекты создаются с IF NOT EXISTS: на существующей бд файл ничего не меняет,
+-- а на пустой создаёт схему, которую дальше приводят к текущему виду миграции V1 и следующие.
+-- Индексы вынесены в отдельные файлы и строятся CONCURRENTLY, чтобы не блокировать запись в большие таблицы
+CREATE TABLE IF NOT EXISTS user8 (
+    id                   bigserial PRIMARY KEY,
+    username             varchar(255),
+    email                varchar(255),
+    activation_code      varchar(255),
+    password             varchar(255),
+    phone_number         varchar(255),
+    reset_password_token varchar(255)
+);
+
+CREATE TABLE IF NOT EXISTS user_role8 (
+    user_id bigint NOT NULL REFERENCES user8 (id),
+    roles   varchar(255)
+);
+
+CREATE TABLE IF NOT EXISTS truck8 (
+    id          bigserial PRIMARY KEY,
+    description varchar(255),
+    car_number  varchar(255)
+);
+
+CREATE TABLE IF NOT EXISTS employee8 (
+    id   bigserial PRIMARY KEY,
+    name varchar(255)
+);
+
+CREATE SEQUENCE IF NOT EXISTS order8_id_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS order8 (
+    id                bigint PRIMARY KEY,
+    customer_username varchar(255),
+    address_from      varchar(255),
+    address_to        varchar(255),
+    distance_m        integer,
+    duration_s        integer,
+    target_date       date,
+    target_time       time,
+    creation_date     timestamp,
+    truck_id          bigint REFERENCES truck8 (id),
+    price             integer NOT NULL,
+    CONSTRAINT order8_truck_id_target_date_key UNIQUE (truck_id, target_date)
+);
+
+CREATE TABLE IF NOT EXISTS employees_orders (
+    order_id    bigint NOT NULL REFERENCES order8 (id),
+    employee_id bigint NOT NULL REFERENCES employee8 (id)
+);
+
+CREATE TABLE IF NOT EXISTS employee_booking8 (
+    employee_id bigint NOT NULL,
+    target_date date   NOT NULL,
+    order_id    bigint NOT NULL,
+    PRIMARY KEY (employee_id, target_date)
+);
+
+CREATE SEQUENCE IF NOT EXISTS mail_outbox8_id_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS mail_outbox8 (
+    id              bigint PRIMARY KEY,
+    recipient       varchar(255)  NOT NULL,
+    subject         varchar(255)  NOT NULL,
+    body            text          NOT NULL,
+    status          varchar(16)   NOT NULL,
+    attempts        integer       NOT NULL,
+    next_attempt_at timestamp     NOT NULL,
+    created_at      timestamp     NOT NULL,
+    last_error      varchar(1000)
+);
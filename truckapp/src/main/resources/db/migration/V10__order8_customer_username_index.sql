@@ -0,0 +1,2 @@
+-- Индекс для списка заказов пользователя: выборка по никнейму заказчика с сортировкой по id
+CREATE INDEX CONCURRENTLY IF NOT EXISTS order8_customer_username_id_idx ON order8 (customer_username, id);
@@ -0,0 +1,2 @@
+-- Индекс внешнего ключа связи заказа и сотрудников: загрузка бригады заказа и удаление заказа
+CREATE INDEX CONCURRENTLY IF NOT EXISTS employees_orders_order_id_idx ON employees_orders (order_id);
@@ -0,0 +1,2 @@
+-- Индекс внешнего ключа связи заказа и сотрудников: заказы сотрудника и удаление сотрудника
+CREATE INDEX CONCURRENTLY IF NOT EXISTS employees_orders_employee_id_idx ON employees_orders (employee_id);
@@ -0,0 +1,2 @@
+-- Индекс для освобождения занятости сотрудников при удалении заказа
+CREATE INDEX CONCURRENTLY IF NOT EXISTS employee_booking8_order_id_idx ON employee_booking8 (order_id);
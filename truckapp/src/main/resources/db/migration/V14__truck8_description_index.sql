@@ -0,0 +1,2 @@
+-- Индекс для подбора грузовика по характеристике
+CREATE INDEX CONCURRENTLY IF NOT EXISTS truck8_description_idx ON truck8 (description);
@@ -0,0 +1,2 @@
+-- Индекс для списка сотрудников, упорядоченного по имени
+CREATE INDEX CONCURRENTLY IF NOT EXISTS employee8_name_id_idx ON employee8 (name, id);
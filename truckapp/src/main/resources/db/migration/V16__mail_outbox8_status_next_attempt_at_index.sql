@@ -0,0 +1,2 @@
+-- Индекс для выборки писем, которые пора отправить
+CREATE INDEX CONCURRENTLY IF NOT EXISTS mail_outbox8_status_next_attempt_at_idx ON mail_outbox8 (status, next_attempt_at);
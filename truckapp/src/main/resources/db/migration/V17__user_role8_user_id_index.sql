@@ -0,0 +1,2 @@
+-- Индекс внешнего ключа ролей пользователя: загрузка ролей при входе и удаление пользователя
+CREATE INDEX CONCURRENTLY IF NOT EXISTS user_role8_user_id_idx ON user_role8 (user_id);
@@ -0,0 +1,21 @@
+-- Проверка перед уникальными индексами V19-V21: до них уникальность проверялась только приложением,
+-- поэтому в user8 могут быть повторы. Неудачный CREATE UNIQUE INDEX CONCURRENTLY оставил бы
+-- недействительный индекс, поэтому повторы нужно найти заранее и устранить вручную
+DO $$
+DECLARE
+    duplicates text;
+BEGIN
+    SELECT string_agg(format('%s = %L (%s rows)', column_name, value, n), ', ')
+    INTO duplicates
+    FROM (SELECT 'username' AS column_name, username AS value, count(*) AS n
+          FROM user8 WHERE username IS NOT NULL GROUP BY username HAVING count(*) > 1
+          UNION ALL
+          SELECT 'email', email, count(*)
+          FROM user8 WHERE email IS NOT NULL GROUP BY email HAVING count(*) > 1
+          UNION ALL
+          SELECT 'phone_number', phone_number, count(*)
+          FROM user8 WHERE phone_number IS NOT NULL GROUP BY phone_number HAVING count(*) > 1) d;
+    IF duplicates IS NOT NULL THEN
+        RAISE EXCEPTION 'user8 has duplicate values, resolve them before the unique indexes are built: %', duplicates;
+    END IF;
+END $$;
@@ -0,0 +1,2 @@
+-- Уникальность никнейма: проверка при регистрации одним запросом и защита от одновременной регистрации
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS user8_username_key ON user8 (username);
@@ -0,0 +1,2 @@
+-- Триграммы для поиска по подстроке никнейма заказчика и имени сотрудника
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
@@ -0,0 +1,2 @@
+-- Уникальность адреса эл.почты: проверка при регистрации и поиск пользователя при восстановлении пароля
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS user8_email_key ON user8 (email);
@@ -0,0 +1,2 @@
+-- Уникальность номера телефона: проверка при регистрации одним запросом
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS user8_phone_number_key ON user8 (phone_number);
@@ -0,0 +1,33 @@
+-- Токены активации и смены пароля переносятся из колонок user8 в отдельную таблицу.
+-- Хранится только SHA-256 токена, у каждого токена есть срок действия. Перенесённые токены
+-- получают срок с момента миграции, а вместо кода активации в user8 остаётся признак activated
+CREATE TABLE IF NOT EXISTS user_token8 (
+    token_hash varchar(64) PRIMARY KEY,
+    type       varchar(16) NOT NULL,
+    user_id    bigint      NOT NULL REFERENCES user8 (id),
+    expires_at timestamp   NOT NULL
+);
+CREATE INDEX IF NOT EXISTS user_token8_expires_at_idx ON user_token8 (expires_at);
+CREATE INDEX IF NOT EXISTS user_token8_user_id_idx ON user_token8 (user_id);
+
+ALTER TABLE user8 ADD COLUMN IF NOT EXISTS activated boolean NOT NULL DEFAULT true;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = 'public' AND table_name = 'user8'
+                     AND column_name = 'activation_code') THEN
+        RETURN;
+    END IF;
+    UPDATE user8 SET activated = false WHERE activation_code IS NOT NULL;
+    INSERT INTO user_token8 (token_hash, type, user_id, expires_at)
+    SELECT encode(sha256(convert_to(activation_code, 'UTF8')), 'hex'), 'ACTIVATION', id, now() + interval '7 days'
+    FROM user8 WHERE activation_code IS NOT NULL
+    ON CONFLICT DO NOTHING;
+    INSERT INTO user_token8 (token_hash, type, user_id, expires_at)
+    SELECT encode(sha256(convert_to(reset_password_token, 'UTF8')), 'hex'), 'PASSWORD_RESET', id, now() + interval '1 hour'
+    FROM user8 WHERE reset_password_token IS NOT NULL
+    ON CONFLICT DO NOTHING;
+    ALTER TABLE user8 DROP COLUMN activation_code, DROP COLUMN reset_password_token;
+END
+$$;
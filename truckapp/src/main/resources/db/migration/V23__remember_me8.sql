@@ -0,0 +1,12 @@
+-- Постоянные входы "запомнить меня": серия выдаётся при входе по паролю и живёт до выхода,
+-- а токен внутри серии заменяется при каждом использовании. Хранится только SHA-256 токена.
+-- Предыдущий хеш нужен, чтобы параллельные запросы со старым cookie не приняли за кражу
+CREATE TABLE IF NOT EXISTS remember_me8 (
+    series              varchar(22) PRIMARY KEY,
+    user_id             bigint      NOT NULL REFERENCES user8 (id),
+    token_hash          varchar(64) NOT NULL,
+    previous_token_hash varchar(64),
+    last_used           timestamp   NOT NULL
+);
+CREATE INDEX IF NOT EXISTS remember_me8_user_id_idx ON remember_me8 (user_id);
+CREATE INDEX IF NOT EXISTS remember_me8_last_used_idx ON remember_me8 (last_used);
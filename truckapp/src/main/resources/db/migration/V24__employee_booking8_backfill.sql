@@ -0,0 +1,34 @@
+-- Перенос назначений сотрудников на будущие заказы в employee_booking8: первичный ключ
+-- (employee_id, target_date) защищает от двойного бронирования только записанные в таблицу брони.
+-- При повторном назначении сотрудника на одну дату бронь получает заказ с меньшим номером,
+-- а остальные назначения выводятся предупреждениями в журнал миграций для ручного разбора
+DO $$
+DECLARE
+    inserted  bigint;
+    conflicts bigint := 0;
+    conflict  record;
+BEGIN
+    INSERT INTO employee_booking8 (employee_id, target_date, order_id)
+    SELECT eo.employee_id, o.target_date, o.id
+    FROM employees_orders eo
+    JOIN order8 o ON o.id = eo.order_id
+    WHERE o.target_date >= current_date
+    ORDER BY o.id
+    ON CONFLICT DO NOTHING;
+    GET DIAGNOSTICS inserted = ROW_COUNT;
+
+    FOR conflict IN
+        SELECT eo.employee_id, o.target_date, o.id AS order_id, b.order_id AS booked_order_id
+        FROM employees_orders eo
+        JOIN order8 o ON o.id = eo.order_id
+        JOIN employee_booking8 b ON b.employee_id = eo.employee_id AND b.target_date = o.target_date
+        WHERE o.target_date >= current_date AND b.order_id <> o.id
+        ORDER BY eo.employee_id, o.target_date, o.id
+    LOOP
+        conflicts := conflicts + 1;
+        RAISE WARNING 'employee % on % is booked by order %, order % is double-booked',
+            conflict.employee_id, conflict.target_date, conflict.booked_order_id, conflict.order_id;
+    END LOOP;
+
+    RAISE NOTICE 'employee_booking8 backfill: % bookings added, % conflicting assignments', inserted, conflicts;
+END $$;
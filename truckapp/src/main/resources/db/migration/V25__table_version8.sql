@@ -0,0 +1,67 @@
+-- Версии данных для ETag списков api. Счётчик таблицы увеличивается триггером на каждую инструкцию,
+-- изменившую таблицу, а для заказов ещё и счётчик каждого затронутого заказчика, поэтому версия
+-- читается одной выборкой по первичному ключу и меняется при добавлении, изменении и удалении строк.
+-- Триггеры уровня инструкции срабатывают один раз на пакет вставок.
+-- Общие счётчики заказов и назначений убраны в V26: их строки блокировались до конца каждого бронирования
+CREATE TABLE IF NOT EXISTS table_version8 (
+    name    varchar(255) PRIMARY KEY,
+    version bigint       NOT NULL
+);
+
+CREATE OR REPLACE FUNCTION table_version8_bump() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO table_version8 (name, version) VALUES (TG_TABLE_NAME, 1)
+    ON CONFLICT (name) DO UPDATE SET version = table_version8.version + 1;
+    RETURN NULL;
+END
+$$;
+
+-- Счётчики заказчиков обновляются в порядке имени, чтобы параллельные пакетные изменения не ждали друг друга по кругу
+CREATE OR REPLACE FUNCTION order8_customer_version_bump() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP <> 'DELETE' THEN
+        INSERT INTO table_version8 (name, version)
+        SELECT DISTINCT 'order8:' || customer_username, 1 FROM new_rows
+        WHERE customer_username IS NOT NULL ORDER BY 1
+        ON CONFLICT (name) DO UPDATE SET version = table_version8.version + 1;
+    END IF;
+    IF TG_OP <> 'INSERT' THEN
+        INSERT INTO table_version8 (name, version)
+        SELECT DISTINCT 'order8:' || customer_username, 1 FROM old_rows
+        WHERE customer_username IS NOT NULL ORDER BY 1
+        ON CONFLICT (name) DO UPDATE SET version = table_version8.version + 1;
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER IF EXISTS order8_version ON order8;
+CREATE TRIGGER order8_version AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON order8
+    FOR EACH STATEMENT EXECUTE FUNCTION table_version8_bump();
+
+DROP TRIGGER IF EXISTS order8_customer_version_insert ON order8;
+CREATE TRIGGER order8_customer_version_insert AFTER INSERT ON order8
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION order8_customer_version_bump();
+
+DROP TRIGGER IF EXISTS order8_customer_version_update ON order8;
+CREATE TRIGGER order8_customer_version_update AFTER UPDATE ON order8
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION order8_customer_version_bump();
+
+DROP TRIGGER IF EXISTS order8_customer_version_delete ON order8;
+CREATE TRIGGER order8_customer_version_delete AFTER DELETE ON order8
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION order8_customer_version_bump();
+
+DROP TRIGGER IF EXISTS truck8_version ON truck8;
+CREATE TRIGGER truck8_version AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON truck8
+    FOR EACH STATEMENT EXECUTE FUNCTION table_version8_bump();
+
+DROP TRIGGER IF EXISTS employee8_version ON employee8;
+CREATE TRIGGER employee8_version AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON employee8
+    FOR EACH STATEMENT EXECUTE FUNCTION table_version8_bump();
+
+DROP TRIGGER IF EXISTS employees_orders_version ON employees_orders;
+CREATE TRIGGER employees_orders_version AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON employees_orders
+    FOR EACH STATEMENT EXECUTE FUNCTION table_version8_bump();
@@ -0,0 +1,38 @@
+-- Общие счётчики order8 и employees_orders из V25 блокировали одну строку до конца каждой транзакции
+-- бронирования (OrderService.saveAll пишет заказы и брони до фиксации), и все бронирования на всех датах
+-- выстраивались в очередь за ней. Счётчики заказчиков переносятся в отдельную таблицу, версия списка
+-- всех заказов считается суммой этих счётчиков, а общие счётчики и их триггеры удаляются.
+-- Строки employees_orders меняются только вместе со строками заказа, поэтому отдельный счётчик им не нужен.
+-- Счётчики truck8 и employee8 остаются: эти таблицы меняет только администратор
+CREATE TABLE IF NOT EXISTS customer_version8 (
+    customer_username varchar(255) PRIMARY KEY,
+    version           bigint       NOT NULL
+);
+
+INSERT INTO customer_version8 (customer_username, version)
+SELECT substring(name FROM length('order8:') + 1), version FROM table_version8
+WHERE name LIKE 'order8:%'
+ON CONFLICT (customer_username) DO NOTHING;
+
+DROP TRIGGER IF EXISTS order8_version ON order8;
+DROP TRIGGER IF EXISTS employees_orders_version ON employees_orders;
+DELETE FROM table_version8 WHERE name IN ('order8', 'employees_orders') OR name LIKE 'order8:%';
+
+-- Счётчики заказчиков обновляются в порядке имени, чтобы параллельные пакетные изменения не ждали друг друга по кругу
+CREATE OR REPLACE FUNCTION order8_customer_version_bump() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP <> 'DELETE' THEN
+        INSERT INTO customer_version8 (customer_username, version)
+        SELECT DISTINCT customer_username, 1 FROM new_rows
+        WHERE customer_username IS NOT NULL ORDER BY 1
+        ON CONFLICT (customer_username) DO UPDATE SET version = customer_version8.version + 1;
+    END IF;
+    IF TG_OP <> 'INSERT' THEN
+        INSERT INTO customer_version8 (customer_username, version)
+        SELECT DISTINCT customer_username, 1 FROM old_rows
+        WHERE customer_username IS NOT NULL ORDER BY 1
+        ON CONFLICT (customer_username) DO UPDATE SET version = customer_version8.version + 1;
+    END IF;
+    RETURN NULL;
+END
+$$;
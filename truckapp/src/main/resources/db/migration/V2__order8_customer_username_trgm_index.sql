@@ -0,0 +1,2 @@
+CREATE INDEX CONCURRENTLY IF NOT EXISTS order8_customer_username_trgm_idx
+    ON order8 USING gin (customer_username gin_trgm_ops);
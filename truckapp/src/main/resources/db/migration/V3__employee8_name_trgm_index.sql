@@ -0,0 +1,2 @@
+CREATE INDEX CONCURRENTLY IF NOT EXISTS employee8_name_trgm_idx
+    ON employee8 USING gin (name gin_trgm_ops);
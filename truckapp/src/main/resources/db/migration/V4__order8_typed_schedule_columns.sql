@@ -0,0 +1,67 @@
+-- Типизированные колонки расписания заказа и функции разбора старых строковых значений.
+-- Колонки добавляются, только если target_date ещё хранится строкой
+CREATE OR REPLACE FUNCTION order8_parse_date(value text) RETURNS date AS $$
+BEGIN
+    IF value ~ '^\d{4}-\d{2}-\d{2}$' THEN
+        RETURN value::date;
+    END IF;
+    RETURN NULL;
+EXCEPTION WHEN others THEN
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql IMMUTABLE;
+
+CREATE OR REPLACE FUNCTION order8_parse_time(value text) RETURNS time AS $$
+BEGIN
+    IF value ~ '^\d{1,2}:\d{2}$' THEN
+        RETURN value::time;
+    END IF;
+    RETURN NULL;
+EXCEPTION WHEN others THEN
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql IMMUTABLE;
+
+-- "12,3 км", "1 234 км", "850 м"
+CREATE OR REPLACE FUNCTION order8_parse_distance_m(value text) RETURNS integer AS $$
+DECLARE
+    parts text[];
+BEGIN
+    parts := regexp_match(replace(regexp_replace(value, '[\s\u00a0]', '', 'g'), ',', '.'), '^(\d+(\.\d+)?)(км|м)');
+    IF parts IS NULL THEN
+        RETURN NULL;
+    END IF;
+    IF parts[3] = 'км' THEN
+        RETURN round(parts[1]::numeric * 1000);
+    END IF;
+    RETURN round(parts[1]::numeric);
+END;
+$$ LANGUAGE plpgsql IMMUTABLE;
+
+-- "25 мин.", "1 ч. 20 мин.", "1 день 3 ч."
+CREATE OR REPLACE FUNCTION order8_parse_duration_s(value text) RETURNS integer AS $$
+DECLARE
+    parts text[];
+    total integer;
+BEGIN
+    FOR parts IN SELECT regexp_matches(value, '(\d+)\s*(д|ч|мин)', 'g') LOOP
+        total := coalesce(total, 0) + parts[1]::integer *
+                 CASE parts[2] WHEN 'д' THEN 86400 WHEN 'ч' THEN 3600 ELSE 60 END;
+    END LOOP;
+    RETURN total;
+END;
+$$ LANGUAGE plpgsql IMMUTABLE;
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = 'public' AND table_name = 'order8'
+                 AND column_name = 'target_date' AND data_type = 'character varying') THEN
+        ALTER TABLE order8
+            ADD COLUMN IF NOT EXISTS target_date_typed date,
+            ADD COLUMN IF NOT EXISTS target_time_typed time,
+            ADD COLUMN IF NOT EXISTS distance_m integer,
+            ADD COLUMN IF NOT EXISTS duration_s integer;
+    END IF;
+END
+$$;
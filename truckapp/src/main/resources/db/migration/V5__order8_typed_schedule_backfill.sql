@@ -0,0 +1,27 @@
+-- Заполнение типизированных колонок пачками по 1000 строк, каждая пачка в своей транзакции.
+-- COMMIT внутри DO работает только вне блока транзакции, поэтому блок лежит в отдельном файле
+DO $$
+DECLARE
+    last_id bigint := 0;
+    next_id bigint;
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = 'public' AND table_name = 'order8'
+                     AND column_name = 'target_date_typed') THEN
+        RETURN;
+    END IF;
+    LOOP
+        SELECT max(id) INTO next_id
+        FROM (SELECT id FROM order8 WHERE id > last_id ORDER BY id LIMIT 1000) batch;
+        EXIT WHEN next_id IS NULL;
+        UPDATE order8
+        SET target_date_typed = order8_parse_date(target_date),
+            target_time_typed = order8_parse_time(target_time),
+            distance_m = coalesce(distance_m, order8_parse_distance_m(distance)),
+            duration_s = coalesce(duration_s, order8_parse_duration_s(duration))
+        WHERE id > last_id AND id <= next_id;
+        last_id := next_id;
+        COMMIT;
+    END LOOP;
+END
+$$;
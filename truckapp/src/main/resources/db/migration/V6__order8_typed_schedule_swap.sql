@@ -0,0 +1,53 @@
+-- Замена строковых колонок типизированными и перевод занятости сотрудников на тип date.
+-- Занятость заказов с нераспознанной датой удаляется: такие заказы не участвуют в подборе.
+-- Старые строковые даты в разных форматах могли скрыть двойное бронирование автомобиля на одну дату,
+-- поэтому перед ограничением уникальности автомобиль остаётся за заказом с меньшим номером,
+-- а у остальных снимается и выводится предупреждением в журнал миграций для ручного переназначения
+DO $$
+DECLARE
+    conflicts bigint := 0;
+    conflict  record;
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = 'public' AND table_name = 'order8'
+                     AND column_name = 'target_date_typed') THEN
+        RETURN;
+    END IF;
+    DELETE FROM employee_booking8 b
+    WHERE NOT EXISTS (SELECT 1 FROM order8 o WHERE o.id = b.order_id AND o.target_date_typed IS NOT NULL);
+    ALTER TABLE employee_booking8 ALTER COLUMN target_date TYPE date USING target_date::date;
+
+    ALTER TABLE order8 DROP CONSTRAINT IF EXISTS order8_truck_id_target_date_key;
+    ALTER TABLE order8
+        DROP COLUMN target_date,
+        DROP COLUMN target_time,
+        DROP COLUMN IF EXISTS distance,
+        DROP COLUMN IF EXISTS duration;
+    ALTER TABLE order8 RENAME COLUMN target_date_typed TO target_date;
+    ALTER TABLE order8 RENAME COLUMN target_time_typed TO target_time;
+
+    FOR conflict IN
+        SELECT order_id, truck_id, target_date, kept_order_id
+        FROM (SELECT id AS order_id, truck_id, target_date,
+                     min(id) OVER (PARTITION BY truck_id, target_date) AS kept_order_id
+              FROM order8 WHERE truck_id IS NOT NULL AND target_date IS NOT NULL) o
+        WHERE order_id <> kept_order_id
+        ORDER BY truck_id, target_date, order_id
+    LOOP
+        conflicts := conflicts + 1;
+        RAISE WARNING 'truck % on % is booked by order %, truck removed from double-booked order %',
+            conflict.truck_id, conflict.target_date, conflict.kept_order_id, conflict.order_id;
+        UPDATE order8 SET truck_id = NULL WHERE id = conflict.order_id;
+    END LOOP;
+    IF conflicts > 0 THEN
+        RAISE NOTICE 'order8: truck removed from % double-booked orders', conflicts;
+    END IF;
+
+    ALTER TABLE order8 ADD CONSTRAINT order8_truck_id_target_date_key UNIQUE (truck_id, target_date);
+END
+$$;
+
+DROP FUNCTION IF EXISTS order8_parse_date(text);
+DROP FUNCTION IF EXISTS order8_parse_time(text);
+DROP FUNCTION IF EXISTS order8_parse_distance_m(text);
+DROP FUNCTION IF EXISTS order8_parse_duration_s(text);
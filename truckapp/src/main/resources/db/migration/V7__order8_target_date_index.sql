@@ -0,0 +1,2 @@
+-- Индекс для выборок по дате выполнения: подбор ресурсов на дату, автоудаление прошедших заказов, отчёты
+CREATE INDEX CONCURRENTLY IF NOT EXISTS order8_target_date_idx ON order8 (target_date);
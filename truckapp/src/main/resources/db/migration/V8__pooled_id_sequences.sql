@@ -0,0 +1,10 @@
+-- Заказы и письма получают id из последовательностей с шагом 50: Hibernate выделяет id пачками
+-- и может объединять вставки в пакеты. Значение сдвигается за текущий максимум, чтобы первый
+-- выделенный диапазон не пересёкся с уже выданными id
+ALTER SEQUENCE order8_id_seq INCREMENT BY 50;
+SELECT setval('order8_id_seq',
+              greatest((SELECT last_value FROM order8_id_seq), (SELECT coalesce(max(id), 0) FROM order8)) + 50);
+
+ALTER SEQUENCE mail_outbox8_id_seq INCREMENT BY 50;
+SELECT setval('mail_outbox8_id_seq',
+              greatest((SELECT last_value FROM mail_outbox8_id_seq), (SELECT coalesce(max(id), 0) FROM mail_outbox8)) + 50);
@@ -0,0 +1,2 @@
+-- Индекс для проверки занятости автомобильного номера при добавлении грузовика
+CREATE INDEX CONCURRENTLY IF NOT EXISTS truck8_car_number_idx ON truck8 (car_number);
@@ -0,0 +1,64 @@
+package truckapp.validators;
+
+import truckapp.model.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверка полей заказа, не зависящих от занятости ресурсов
+ *
+ * @author kanenkovaa
+ * @version 0.1
+ */
+class OrderValidatorTest {
+
+    private final OrderValidator orderValidator = new OrderValidator();
+
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        order = new Order();
+        order.setAddressFrom("Москва, Тверская, 1");
+        order.setAddressTo("Москва, Арбат, 10");
+        order.setTargetDate(LocalDate.now().plusDays(1));
+        order.setTargetTime(LocalTime.of(10, 30));
+        order.setDistanceM(4200);
+        order.setDurationS(1200);
+    }
+
+    @Test
+    void acceptsOrderWithWorkers() {
+        BindingResult bindingResult = validate(1);
+
+        assertThat(bindingResult.hasErrors()).isFalse();
+    }
+
+    @Test
+    void rejectsOrderWithoutWorkers() {
+        BindingResult bindingResult = validate(0);
+
+        assertThat(bindingResult.getFieldError("workers")).isNotNull();
+        assertThat(bindingResult.getFieldError("workers").getCode()).isEqualTo("нужен хотя бы один грузчик");
+    }
+
+    @Test
+    void rejectsNegativeNumberOfWorkers() {
+        BindingResult bindingResult = validate(-2);
+
+        assertThat(bindingResult.getFieldError("workers")).isNotNull();
+    }
+
+    private BindingResult validate(int numberOfWorkers) {
+        BindingResult bindingResult = new BeanPropertyBindingResult(order, "orderForm");
+        orderValidator.validateFields(order, numberOfWorkers, bindingResult);
+        return bindingResult;
+    }
+}